@@ -0,0 +1,68 @@
+package com.exam.cache;
+
+import com.exam.grading.AnswerKeyCache;
+import com.exam.model.Exam;
+import com.exam.model.Question;
+import com.exam.search.DuplicateIndex;
+import com.exam.search.QuestionSearchIndex;
+import com.exam.service.ExamStatusScheduler;
+
+import java.util.List;
+
+// Called by the DAOs after a write so every in-process cache derived from exams or questions stays current
+public final class ContentEvents {
+
+    private ContentEvents() {}
+
+    public static void questionCreated(Question question) {
+        // Only exams without linked questions serve the whole bank, so only they change
+        AnswerKeyCache.getInstance().invalidateWholeBank();
+        PaperCache.getInstance().invalidateWholeBank();
+        QuestionSearchIndex.getInstance().put(question);
+        DuplicateIndex.getInstance().put(question);
+    }
+
+    // Bulk import: one invalidation for the whole batch
+    public static void questionsCreated(List<Question> questions) {
+        AnswerKeyCache.getInstance().invalidateWholeBank();
+        PaperCache.getInstance().invalidateWholeBank();
+        QuestionSearchIndex.getInstance().putAll(questions);
+        DuplicateIndex.getInstance().putAll(questions);
+    }
+
+    public static void questionChanged(Question question) {
+        AnswerKeyCache.getInstance().invalidateQuestion(question.getQuestionId());
+        PaperCache.getInstance().invalidateQuestion(question.getQuestionId());
+        QuestionSearchIndex.getInstance().put(question);
+        DuplicateIndex.getInstance().put(question);
+    }
+
+    public static void questionDeleted(int questionId) {
+        AnswerKeyCache.getInstance().invalidateQuestion(questionId);
+        PaperCache.getInstance().invalidateQuestion(questionId);
+        QuestionSearchIndex.getInstance().remove(questionId);
+        DuplicateIndex.getInstance().remove(questionId);
+    }
+
+    public static void examSaved(Exam exam) {
+        int examId = exam.getExamId();
+        // An exam re-created under an existing examId must not be graded or served from the old version
+        AnswerKeyCache.getInstance().invalidateExam(examId);
+        PaperCache.getInstance().invalidateExam(examId);
+        ExamCatalogCache.getInstance().invalidate();
+        ExamStatusScheduler.getInstance().track(exam);
+    }
+
+    // For the exam delete path: nothing may be served, graded or scheduled for it any more
+    public static void examDeleted(int examId) {
+        AnswerKeyCache.getInstance().invalidateExam(examId);
+        PaperCache.getInstance().invalidateExam(examId);
+        ExamCatalogCache.getInstance().invalidate();
+        ExamStatusScheduler.getInstance().untrack(examId);
+    }
+
+    // Published by ExamStatusScheduler after the new status is stored
+    public static void examStatusChanged(int examId, String status) {
+        ExamCatalogCache.getInstance().updateStatus(examId, status);
+    }
+}
@@ -0,0 +1,139 @@
+package com.exam.cache;
+
+import com.exam.model.Exam;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Shared, versioned snapshot of all exams with their JSON pre-rendered for the student dashboard
+public class ExamCatalogCache {
+    private static final ExamCatalogCache INSTANCE = new ExamCatalogCache();
+
+    private final Gson gson = new Gson();
+    private final AtomicLong version = new AtomicLong();
+    // Not a monitor: the load blocks on Mongo, which would pin a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public static ExamCatalogCache getInstance() {
+        return INSTANCE;
+    }
+
+    public static final class Snapshot {
+        private final long version;
+        private final int[] examIds;
+        private final String[] statuses;
+        private final String[] json;
+        private final String[] completedJson;
+
+        private Snapshot(long version, int[] examIds, String[] statuses, String[] json, String[] completedJson) {
+            this.version = version;
+            this.examIds = examIds;
+            this.statuses = statuses;
+            this.json = json;
+            this.completedJson = completedJson;
+        }
+
+        public long getVersion() { return version; }
+
+        public int size() { return examIds.length; }
+
+        public int getExamId(int index) { return examIds[index]; }
+
+        public String getStatus(int index) { return statuses[index]; }
+
+        // -1 if the exam is not in the catalog
+        public int indexOf(int examId) {
+            for (int i = 0; i < examIds.length; i++) {
+                if (examIds[i] == examId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public String getJson(int index) { return json[index]; }
+
+        // Same exam rendered with status COMPLETED, for students who already took it
+        public String getCompletedJson(int index) { return completedJson[index]; }
+    }
+
+    public Snapshot get(Supplier<List<Exam>> loader) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.lock();
+        try {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            long loadVersion = version.get();
+            Snapshot loaded = build(loadVersion, loader.get());
+            // Don't publish a snapshot that an invalidation raced past while we were reading
+            if (version.get() == loadVersion) {
+                snapshot = loaded;
+            }
+            return loaded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Swaps in a copy with one exam's status and JSON changed, instead of reloading every exam
+    public void updateStatus(int examId, String status) {
+        lock.lock();
+        try {
+            long seen = version.get();
+            Snapshot current = snapshot;
+            if (current == null) {
+                return;
+            }
+            int i = current.indexOf(examId);
+            if (i < 0) {
+                invalidate();
+                return;
+            }
+            String[] statuses = current.statuses.clone();
+            String[] json = current.json.clone();
+            statuses[i] = status;
+            JsonObject tree = JsonParser.parseString(json[i]).getAsJsonObject();
+            tree.addProperty("status", status);
+            json[i] = gson.toJson(tree);
+            // An invalidate() in between wins; the next load reads the stored status anyway
+            if (version.compareAndSet(seen, seen + 1)) {
+                snapshot = new Snapshot(seen + 1, current.examIds, statuses, json, current.completedJson);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot build(long version, List<Exam> exams) {
+        int n = exams.size();
+        int[] examIds = new int[n];
+        String[] statuses = new String[n];
+        String[] json = new String[n];
+        String[] completedJson = new String[n];
+        for (int i = 0; i < n; i++) {
+            Exam exam = exams.get(i);
+            examIds[i] = exam.getExamId();
+            statuses[i] = exam.getStatus();
+            JsonObject tree = gson.toJsonTree(exam).getAsJsonObject();
+            json[i] = gson.toJson(tree);
+            tree.addProperty("status", "COMPLETED");
+            completedJson[i] = gson.toJson(tree);
+        }
+        return new Snapshot(version, examIds, statuses, json, completedJson);
+    }
+}
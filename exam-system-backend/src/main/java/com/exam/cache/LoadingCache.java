@@ -0,0 +1,113 @@
+package com.exam.cache;
+
+import com.google.gson.JsonObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+// LRU cache by int id. Concurrent misses for the same id share one load, which runs outside the lock.
+// A loader returning null (unknown id) or throwing leaves nothing cached.
+public class LoadingCache<V> {
+    private final Map<Integer, CompletableFuture<V>> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public LoadingCache(int maxEntries) {
+        this.entries = new LinkedHashMap<Integer, CompletableFuture<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<V>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(int id, IntFunction<V> loader) {
+        CompletableFuture<V> future;
+        boolean owner = false;
+        synchronized (entries) {
+            future = entries.get(id);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                entries.put(id, future);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            misses.incrementAndGet();
+            V value;
+            try {
+                value = loader.apply(id);
+            } catch (RuntimeException e) {
+                remove(id, future);
+                future.completeExceptionally(e);
+                throw e;
+            }
+            if (value == null) {
+                remove(id, future);
+            }
+            future.complete(value);
+        } else {
+            hits.incrementAndGet();
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    public void invalidate(int id) {
+        synchronized (entries) {
+            if (entries.remove(id) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    // Entries still loading are dropped too, they may have read the old version
+    public void invalidateIf(Predicate<V> stale) {
+        synchronized (entries) {
+            Iterator<CompletableFuture<V>> it = entries.values().iterator();
+            while (it.hasNext()) {
+                CompletableFuture<V> future = it.next();
+                V value = future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+                if (value == null || stale.test(value)) {
+                    it.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void remove(int id, CompletableFuture<V> future) {
+        synchronized (entries) {
+            entries.remove(id, future);
+        }
+    }
+
+    public JsonObject getStats() {
+        JsonObject stats = new JsonObject();
+        synchronized (entries) {
+            stats.addProperty("size", entries.size());
+        }
+        stats.addProperty("hits", hits.get());
+        stats.addProperty("misses", misses.get());
+        stats.addProperty("evictions", evictions.get());
+        stats.addProperty("invalidations", invalidations.get());
+        return stats;
+    }
+}
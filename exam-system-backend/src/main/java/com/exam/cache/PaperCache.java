@@ -0,0 +1,28 @@
+package com.exam.cache;
+
+// LRU cache of published papers by examId. Concurrent misses for the same exam share one load.
+// get's loader returns null for an unknown exam; that is not cached.
+public class PaperCache extends LoadingCache<PublishedPaper> {
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+    private static final PaperCache INSTANCE = new PaperCache(DEFAULT_MAX_ENTRIES);
+
+    public static PaperCache getInstance() {
+        return INSTANCE;
+    }
+
+    public PaperCache(int maxEntries) {
+        super(maxEntries);
+    }
+
+    public void invalidateExam(int examId) {
+        invalidate(examId);
+    }
+
+    public void invalidateQuestion(int questionId) {
+        invalidateIf(paper -> paper.contains(questionId));
+    }
+
+    public void invalidateWholeBank() {
+        invalidateIf(PublishedPaper::isWholeBank);
+    }
+}
@@ -0,0 +1,206 @@
+package com.exam.cache;
+
+import com.exam.model.Exam;
+import com.exam.model.Question;
+import com.exam.util.Permutations;
+import com.google.gson.Gson;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+// The question paper students see for one exam: answers stripped, encoded once as UTF-8 JSON. The gzip
+// copy and the tag are made on first use, so a per-student paper built for one response pays only for what it sends.
+// Exams that shuffle also keep each question pre-encoded in pieces, so a per-student order is
+// just a different walk over the same bytes.
+public final class PublishedPaper {
+    private static final Gson gson = new Gson();
+    private static final String OPTIONS_MARKER = "\"options\":[]";
+
+    private final int examId;
+    private final int[] questionIds; // sorted, for invalidation
+    private final boolean wholeBank;
+    private final byte[] json;
+    // Lazily computed; two requests racing both compute the same bytes, so no lock
+    private volatile byte[] gzip;
+    private volatile String etag;
+
+    private final boolean perStudent; // blueprint exam drawing per student; this paper is only the fallback set
+    private final boolean shuffleQuestions;
+    private final boolean shuffleOptions;
+    // Per question in canonical order: JSON up to and including "options":[, each option, and the rest from ]
+    private final byte[][] heads;
+    private final byte[][][] options;
+    private final byte[][] tails;
+    private final int[] paperQuestionIds;
+
+    private PublishedPaper(Exam exam, int[] questionIds, boolean wholeBank, byte[] json,
+                           byte[][] heads, byte[][][] options, byte[][] tails, int[] paperQuestionIds) {
+        this.examId = exam.getExamId();
+        this.questionIds = questionIds;
+        this.wholeBank = wholeBank;
+        this.json = json;
+        this.perStudent = exam.hasPerStudentQuestions();
+        this.shuffleQuestions = exam.isShuffleQuestions();
+        this.shuffleOptions = exam.isShuffleOptions();
+        this.heads = heads;
+        this.options = options;
+        this.tails = tails;
+        this.paperQuestionIds = paperQuestionIds;
+    }
+
+    // The questions are modified in place (correctAnswer hidden), so pass freshly loaded ones
+    public static PublishedPaper build(Exam exam, List<Question> questions, boolean wholeBank) {
+        int n = questions.size();
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            Question q = questions.get(i);
+            ids[i] = q.getQuestionId();
+            // Hide answers before sending to student
+            q.setCorrectAnswer(-1);
+        }
+        int[] paperIds = ids.clone();
+        Arrays.sort(ids);
+
+        byte[] json = gson.toJson(questions).getBytes(StandardCharsets.UTF_8);
+        if (!exam.isShuffleQuestions() && !exam.isShuffleOptions()) {
+            return new PublishedPaper(exam, ids, wholeBank, json, null, null, null, null);
+        }
+
+        byte[][] heads = new byte[n][];
+        byte[][][] options = new byte[n][][];
+        byte[][] tails = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            Question q = questions.get(i);
+            List<String> opts = q.getOptions() != null ? q.getOptions() : Collections.emptyList();
+            q.setOptions(Collections.emptyList());
+            String whole = gson.toJson(q);
+            q.setOptions(opts);
+
+            int at = whole.indexOf(OPTIONS_MARKER);
+            int split = at + OPTIONS_MARKER.length() - 1; // just before the closing ]
+            heads[i] = whole.substring(0, split).getBytes(StandardCharsets.UTF_8);
+            tails[i] = whole.substring(split).getBytes(StandardCharsets.UTF_8);
+            options[i] = new byte[opts.size()][];
+            for (int j = 0; j < opts.size(); j++) {
+                options[i][j] = gson.toJson(opts.get(j)).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return new PublishedPaper(exam, ids, wholeBank, json, heads, options, tails, paperIds);
+    }
+
+    public boolean isPerStudent() {
+        return perStudent;
+    }
+
+    public boolean isShuffled() {
+        return shuffleQuestions || shuffleOptions;
+    }
+
+    // Students get their own tag for a shuffled paper, since their bytes differ
+    public String getEtag(int studentId) {
+        String etag = getEtag();
+        return isShuffled() ? etag.substring(0, etag.length() - 1) + "-" + studentId + "\"" : etag;
+    }
+
+    // Writes this student's ordering of the paper. Only index arrays are allocated, the bytes are shared.
+    public void writeShuffled(OutputStream out, int studentId) throws IOException {
+        int n = heads.length;
+        long seed = Permutations.seed(examId, studentId);
+        int[] order = new int[n];
+        if (shuffleQuestions) {
+            Permutations.fill(seed, 0, order, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+        }
+
+        int[] optionOrder = new int[maxOptions()];
+        out.write('[');
+        for (int k = 0; k < n; k++) {
+            int i = order[k];
+            if (k > 0) {
+                out.write(',');
+            }
+            out.write(heads[i]);
+            int optionCount = options[i].length;
+            if (shuffleOptions) {
+                Permutations.fill(seed, paperQuestionIds[i], optionOrder, optionCount);
+            }
+            for (int j = 0; j < optionCount; j++) {
+                if (j > 0) {
+                    out.write(',');
+                }
+                out.write(options[i][shuffleOptions ? optionOrder[j] : j]);
+            }
+            out.write(tails[i]);
+        }
+        out.write(']');
+    }
+
+    private int maxOptions() {
+        int max = 0;
+        for (byte[][] opts : options) {
+            max = Math.max(max, opts.length);
+        }
+        return max;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Content hash, so the tag changes exactly when the paper does and survives restarts
+    private static String etagOf(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean contains(int questionId) {
+        return Arrays.binarySearch(questionIds, questionId) >= 0;
+    }
+
+    public int getExamId() { return examId; }
+
+    public boolean isWholeBank() { return wholeBank; }
+
+    public byte[] getJson() { return json; }
+
+    public byte[] getGzip() {
+        byte[] gzip = this.gzip;
+        if (gzip == null) {
+            gzip = gzip(json);
+            this.gzip = gzip;
+        }
+        return gzip;
+    }
+
+    public String getEtag() {
+        String etag = this.etag;
+        if (etag == null) {
+            etag = etagOf(json);
+            this.etag = etag;
+        }
+        return etag;
+    }
+}
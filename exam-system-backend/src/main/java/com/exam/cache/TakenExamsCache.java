@@ -0,0 +1,119 @@
+package com.exam.cache;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+// Per-student set of taken examIds as a sorted int[], bounded with LRU eviction. examIds grow without
+// bound while a student takes a handful, so this stays a few bytes per exam where a BitSet indexed by
+// examId would cost examId/8 bytes per student. Sets are never mutated once published; markTaken swaps in a copy.
+public class TakenExamsCache {
+    private static final int DEFAULT_MAX_STUDENTS = 50_000;
+    private static final TakenExamsCache INSTANCE = new TakenExamsCache(DEFAULT_MAX_STUDENTS);
+
+    private final Map<Integer, Taken> entries;
+
+    // One student's taken exams
+    public static final class Taken {
+        private final int[] examIds; // sorted, no duplicates
+
+        private Taken(int[] examIds) {
+            this.examIds = examIds;
+        }
+
+        public boolean contains(int examId) {
+            return Arrays.binarySearch(examIds, examId) >= 0;
+        }
+
+        private Taken with(int examId) {
+            int at = Arrays.binarySearch(examIds, examId);
+            if (at >= 0) {
+                return this;
+            }
+            int insert = -at - 1;
+            int[] ids = new int[examIds.length + 1];
+            System.arraycopy(examIds, 0, ids, 0, insert);
+            ids[insert] = examId;
+            System.arraycopy(examIds, insert, ids, insert + 1, examIds.length - insert);
+            return new Taken(ids);
+        }
+
+        private Taken union(Taken other) {
+            Taken merged = this;
+            for (int examId : other.examIds) {
+                merged = merged.with(examId);
+            }
+            return merged;
+        }
+    }
+
+    public static TakenExamsCache getInstance() {
+        return INSTANCE;
+    }
+
+    public TakenExamsCache(int maxStudents) {
+        this.entries = new LinkedHashMap<Integer, Taken>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Taken> eldest) {
+                return size() > maxStudents;
+            }
+        };
+    }
+
+    public Taken get(int studentId, IntFunction<List<Integer>> loader) {
+        synchronized (entries) {
+            Taken taken = entries.get(studentId);
+            if (taken != null) {
+                return taken;
+            }
+        }
+        Taken loaded = toTaken(loader.apply(studentId));
+        synchronized (entries) {
+            // A submission may have landed while we were loading; keep whichever set knows more
+            Taken raced = entries.get(studentId);
+            if (raced != null) {
+                loaded = loaded.union(raced);
+            }
+            entries.put(studentId, loaded);
+        }
+        return loaded;
+    }
+
+    public void markTaken(int studentId, int examId, IntFunction<List<Integer>> loader) {
+        Taken current = get(studentId, loader);
+        if (current.contains(examId)) {
+            return;
+        }
+        synchronized (entries) {
+            Taken latest = entries.getOrDefault(studentId, current);
+            entries.put(studentId, latest.with(examId));
+        }
+    }
+
+    public void invalidate(int studentId) {
+        synchronized (entries) {
+            entries.remove(studentId);
+        }
+    }
+
+    private static Taken toTaken(List<Integer> examIds) {
+        int[] ids = new int[examIds.size()];
+        int n = 0;
+        for (Integer examId : examIds) {
+            if (examId != null) {
+                ids[n++] = examId;
+            }
+        }
+        Arrays.sort(ids, 0, n);
+        // Drop duplicates (a retried result can be stored twice under different resultIds)
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || ids[i] != ids[unique - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return new Taken(Arrays.copyOf(ids, unique));
+    }
+}
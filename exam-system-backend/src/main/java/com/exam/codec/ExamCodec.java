@@ -0,0 +1,141 @@
+package com.exam.codec;
+
+import com.exam.model.Blueprint;
+import com.exam.model.Exam;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ExamCodec extends ModelCodec<Exam> {
+
+    @Override
+    public Class<Exam> getEncoderClass() {
+        return Exam.class;
+    }
+
+    @Override
+    protected Exam newInstance() {
+        return new Exam();
+    }
+
+    @Override
+    protected ObjectId getId(Exam value) {
+        return value.getId();
+    }
+
+    @Override
+    protected void setId(Exam value, ObjectId id) {
+        value.setId(id);
+    }
+
+    @Override
+    protected void readField(BsonReader reader, String name, Exam exam) {
+        switch (name) {
+            case "examId": exam.setExamId(readInt(reader)); break;
+            case "title": exam.setTitle(readString(reader)); break;
+            case "subject": exam.setSubject(readString(reader)); break;
+            case "duration": exam.setDuration(readInt(reader)); break;
+            case "totalQuestions": exam.setTotalQuestions(readInt(reader)); break;
+            case "totalMarks": exam.setTotalMarks(readInt(reader)); break;
+            case "status": exam.setStatus(readString(reader)); break;
+            case "scheduledAt": exam.setScheduledAt(readString(reader)); break;
+            case "createdBy": exam.setCreatedBy(readString(reader)); break;
+            case "questionIds": exam.setQuestionIds(readIntList(reader)); break;
+            case "shuffleQuestions": exam.setShuffleQuestions(readBoolean(reader)); break;
+            case "shuffleOptions": exam.setShuffleOptions(readBoolean(reader)); break;
+            case "blueprint": exam.setBlueprint(readBlueprint(reader)); break;
+            default: reader.skipValue();
+        }
+    }
+
+    @Override
+    protected void writeFields(BsonWriter writer, Exam exam) {
+        writer.writeInt32("examId", exam.getExamId());
+        writeString(writer, "title", exam.getTitle());
+        writeString(writer, "subject", exam.getSubject());
+        writer.writeInt32("duration", exam.getDuration());
+        writer.writeInt32("totalQuestions", exam.getTotalQuestions());
+        writer.writeInt32("totalMarks", exam.getTotalMarks());
+        writeString(writer, "status", exam.getStatus());
+        writeString(writer, "scheduledAt", exam.getScheduledAt());
+        writeString(writer, "createdBy", exam.getCreatedBy());
+        if (exam.getQuestionIds() != null) {
+            writeIntList(writer, "questionIds", exam.getQuestionIds());
+        }
+        writer.writeBoolean("shuffleQuestions", exam.isShuffleQuestions());
+        writer.writeBoolean("shuffleOptions", exam.isShuffleOptions());
+        if (exam.getBlueprint() != null) {
+            writeBlueprint(writer, exam.getBlueprint());
+        }
+    }
+
+    private static Blueprint readBlueprint(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+            reader.skipValue();
+            return null;
+        }
+        Blueprint blueprint = new Blueprint();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "totalMarks": blueprint.setTotalMarks(readInt(reader)); break;
+                case "perStudent": blueprint.setPerStudent(readBoolean(reader)); break;
+                case "rules": blueprint.setRules(readRules(reader)); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return blueprint;
+    }
+
+    private static List<Blueprint.Rule> readRules(BsonReader reader) {
+        List<Blueprint.Rule> rules = new ArrayList<>();
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return rules;
+        }
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+                reader.skipValue();
+                continue;
+            }
+            Blueprint.Rule rule = new Blueprint.Rule();
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                switch (reader.readName()) {
+                    case "subject": rule.setSubject(readString(reader)); break;
+                    case "difficulty": rule.setDifficulty(readString(reader)); break;
+                    case "count": rule.setCount(readInt(reader)); break;
+                    default: reader.skipValue();
+                }
+            }
+            reader.readEndDocument();
+            rules.add(rule);
+        }
+        reader.readEndArray();
+        return rules;
+    }
+
+    private static void writeBlueprint(BsonWriter writer, Blueprint blueprint) {
+        writer.writeStartDocument("blueprint");
+        writer.writeInt32("totalMarks", blueprint.getTotalMarks());
+        writer.writeBoolean("perStudent", blueprint.isPerStudent());
+        writer.writeStartArray("rules");
+        if (blueprint.getRules() != null) {
+            for (Blueprint.Rule rule : blueprint.getRules()) {
+                writer.writeStartDocument();
+                writeString(writer, "subject", rule.getSubject());
+                writeString(writer, "difficulty", rule.getDifficulty());
+                writer.writeInt32("count", rule.getCount());
+                writer.writeEndDocument();
+            }
+        }
+        writer.writeEndArray();
+        writer.writeEndDocument();
+    }
+}
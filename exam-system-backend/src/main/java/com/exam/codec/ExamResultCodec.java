@@ -0,0 +1,67 @@
+package com.exam.codec;
+
+import com.exam.model.ExamResult;
+import org.bson.BsonBinary;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.types.ObjectId;
+
+public class ExamResultCodec extends ModelCodec<ExamResult> {
+
+    @Override
+    public Class<ExamResult> getEncoderClass() {
+        return ExamResult.class;
+    }
+
+    @Override
+    protected ExamResult newInstance() {
+        return new ExamResult();
+    }
+
+    @Override
+    protected ObjectId getId(ExamResult value) {
+        return value.getId();
+    }
+
+    @Override
+    protected void setId(ExamResult value, ObjectId id) {
+        value.setId(id);
+    }
+
+    @Override
+    protected void readField(BsonReader reader, String name, ExamResult result) {
+        switch (name) {
+            case "resultId": result.setResultId(readInt(reader)); break;
+            case "examId": result.setExamId(readInt(reader)); break;
+            case "examTitle": result.setExamTitle(readString(reader)); break;
+            case "studentId": result.setStudentId(readInt(reader)); break;
+            case "studentName": result.setStudentName(readString(reader)); break;
+            case "studentEmail": result.setStudentEmail(readString(reader)); break;
+            case "score": result.setScore(readInt(reader)); break;
+            case "totalMarks": result.setTotalMarks(readInt(reader)); break;
+            case "percentage": result.setPercentage(readInt(reader)); break;
+            case "submittedAt": result.setSubmittedAt(readString(reader)); break;
+            case "answerSheet": result.setAnswerSheet(readBytes(reader)); break;
+            case "answerKeyFingerprint": result.setAnswerKeyFingerprint(readInt(reader)); break;
+            default: reader.skipValue();
+        }
+    }
+
+    @Override
+    protected void writeFields(BsonWriter writer, ExamResult result) {
+        writer.writeInt32("resultId", result.getResultId());
+        writer.writeInt32("examId", result.getExamId());
+        writeString(writer, "examTitle", result.getExamTitle());
+        writer.writeInt32("studentId", result.getStudentId());
+        writeString(writer, "studentName", result.getStudentName());
+        writeString(writer, "studentEmail", result.getStudentEmail());
+        writer.writeInt32("score", result.getScore());
+        writer.writeInt32("totalMarks", result.getTotalMarks());
+        writer.writeInt32("percentage", result.getPercentage());
+        writeString(writer, "submittedAt", result.getSubmittedAt());
+        if (result.getAnswerSheet() != null) {
+            writer.writeBinaryData("answerSheet", new BsonBinary(result.getAnswerSheet()));
+            writer.writeInt32("answerKeyFingerprint", result.getAnswerKeyFingerprint());
+        }
+    }
+}
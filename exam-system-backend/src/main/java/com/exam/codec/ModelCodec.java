@@ -0,0 +1,177 @@
+package com.exam.codec;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Base for the hand-written model codecs: reads BSON straight into the model, no intermediate Document.
+// Unknown fields are skipped and missing ones keep the model's defaults, so projections decode fine.
+abstract class ModelCodec<T> implements CollectibleCodec<T> {
+
+    protected abstract T newInstance();
+
+    protected abstract ObjectId getId(T value);
+
+    protected abstract void setId(T value, ObjectId id);
+
+    // Read the current field's value into the model, or skip it
+    protected abstract void readField(BsonReader reader, String name, T value);
+
+    protected abstract void writeFields(BsonWriter writer, T value);
+
+    @Override
+    public T decode(BsonReader reader, DecoderContext decoderContext) {
+        T value = newInstance();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String name = reader.readName();
+            if ("_id".equals(name) && reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+                setId(value, reader.readObjectId());
+            } else {
+                readField(reader, name, value);
+            }
+        }
+        reader.readEndDocument();
+        return value;
+    }
+
+    @Override
+    public void encode(BsonWriter writer, T value, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        ObjectId id = getId(value);
+        if (id != null) {
+            writer.writeObjectId("_id", id);
+        }
+        writeFields(writer, value);
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public T generateIdIfAbsentFromDocument(T document) {
+        if (getId(document) == null) {
+            setId(document, new ObjectId());
+        }
+        return document;
+    }
+
+    @Override
+    public boolean documentHasId(T document) {
+        return getId(document) != null;
+    }
+
+    @Override
+    public BsonValue getDocumentId(T document) {
+        if (!documentHasId(document)) {
+            throw new IllegalStateException("The document does not contain an _id");
+        }
+        return new BsonObjectId(getId(document));
+    }
+
+    // Numbers written by other tools may come back as int64 or double
+    protected static int readInt(BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case INT32:
+                return reader.readInt32();
+            case INT64:
+                return (int) reader.readInt64();
+            case DOUBLE:
+                return (int) reader.readDouble();
+            default:
+                reader.skipValue();
+                return 0;
+        }
+    }
+
+    protected static boolean readBoolean(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.BOOLEAN) {
+            return reader.readBoolean();
+        }
+        reader.skipValue();
+        return false;
+    }
+
+    protected static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    protected static byte[] readBytes(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.BINARY) {
+            return reader.readBinaryData().getData();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    protected static List<String> readStringList(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            values.add(readString(reader));
+        }
+        reader.readEndArray();
+        return values;
+    }
+
+    protected static List<Integer> readIntList(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<Integer> values = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            values.add(readInt(reader));
+        }
+        reader.readEndArray();
+        return values;
+    }
+
+    protected static void writeString(BsonWriter writer, String name, String value) {
+        if (value == null) {
+            writer.writeNull(name);
+        } else {
+            writer.writeString(name, value);
+        }
+    }
+
+    protected static void writeStringList(BsonWriter writer, String name, List<String> values) {
+        if (values == null) {
+            writer.writeNull(name);
+            return;
+        }
+        writer.writeStartArray(name);
+        for (String value : values) {
+            if (value == null) {
+                writer.writeNull();
+            } else {
+                writer.writeString(value);
+            }
+        }
+        writer.writeEndArray();
+    }
+
+    protected static void writeIntList(BsonWriter writer, String name, List<Integer> values) {
+        writer.writeStartArray(name);
+        for (Integer value : values) {
+            writer.writeInt32(value != null ? value : 0);
+        }
+        writer.writeEndArray();
+    }
+}
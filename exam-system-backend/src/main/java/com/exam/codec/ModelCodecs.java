@@ -0,0 +1,15 @@
+package com.exam.codec;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+
+public class ModelCodecs {
+
+    // Driver defaults (Document, Bson filters, ...) plus the model codecs for typed collections
+    public static final CodecRegistry REGISTRY = CodecRegistries.fromRegistries(
+            MongoClientSettings.getDefaultCodecRegistry(),
+            CodecRegistries.fromCodecs(new ExamCodec(), new QuestionCodec(), new ExamResultCodec(), new UserCodec()));
+
+    private ModelCodecs() {}
+}
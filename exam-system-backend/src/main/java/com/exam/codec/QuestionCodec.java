@@ -0,0 +1,54 @@
+package com.exam.codec;
+
+import com.exam.model.Question;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.types.ObjectId;
+
+public class QuestionCodec extends ModelCodec<Question> {
+
+    @Override
+    public Class<Question> getEncoderClass() {
+        return Question.class;
+    }
+
+    @Override
+    protected Question newInstance() {
+        return new Question();
+    }
+
+    @Override
+    protected ObjectId getId(Question value) {
+        return value.getId();
+    }
+
+    @Override
+    protected void setId(Question value, ObjectId id) {
+        value.setId(id);
+    }
+
+    @Override
+    protected void readField(BsonReader reader, String name, Question q) {
+        switch (name) {
+            case "questionId": q.setQuestionId(readInt(reader)); break;
+            case "questionText": q.setQuestionText(readString(reader)); break;
+            case "options": q.setOptions(readStringList(reader)); break;
+            case "correctAnswer": q.setCorrectAnswer(readInt(reader)); break;
+            case "subject": q.setSubject(readString(reader)); break;
+            case "difficulty": q.setDifficulty(readString(reader)); break;
+            case "marks": q.setMarks(readInt(reader)); break;
+            default: reader.skipValue();
+        }
+    }
+
+    @Override
+    protected void writeFields(BsonWriter writer, Question q) {
+        writer.writeInt32("questionId", q.getQuestionId());
+        writeString(writer, "questionText", q.getQuestionText());
+        writeStringList(writer, "options", q.getOptions());
+        writer.writeInt32("correctAnswer", q.getCorrectAnswer());
+        writeString(writer, "subject", q.getSubject());
+        writeString(writer, "difficulty", q.getDifficulty());
+        writer.writeInt32("marks", q.getMarks());
+    }
+}
@@ -0,0 +1,52 @@
+package com.exam.codec;
+
+import com.exam.model.User;
+import org.bson.BsonReader;
+import org.bson.BsonWriter;
+import org.bson.types.ObjectId;
+
+public class UserCodec extends ModelCodec<User> {
+
+    @Override
+    public Class<User> getEncoderClass() {
+        return User.class;
+    }
+
+    @Override
+    protected User newInstance() {
+        return new User();
+    }
+
+    @Override
+    protected ObjectId getId(User value) {
+        return value.getId();
+    }
+
+    @Override
+    protected void setId(User value, ObjectId id) {
+        value.setId(id);
+    }
+
+    @Override
+    protected void readField(BsonReader reader, String name, User user) {
+        switch (name) {
+            case "userId": user.setUserId(readInt(reader)); break;
+            case "fullName": user.setFullName(readString(reader)); break;
+            case "email": user.setEmail(readString(reader)); break;
+            case "password": user.setPassword(readString(reader)); break;
+            case "role": user.setRole(readString(reader)); break;
+            case "createdAt": user.setCreatedAt(readString(reader)); break;
+            default: reader.skipValue();
+        }
+    }
+
+    @Override
+    protected void writeFields(BsonWriter writer, User user) {
+        writer.writeInt32("userId", user.getUserId());
+        writeString(writer, "fullName", user.getFullName());
+        writeString(writer, "email", user.getEmail());
+        writeString(writer, "password", user.getPassword());
+        writeString(writer, "role", user.getRole());
+        writeString(writer, "createdAt", user.getCreatedAt());
+    }
+}
@@ -0,0 +1,50 @@
+package com.exam.config;
+
+import com.exam.dao.QuestionDao;
+import com.exam.search.DuplicateIndex;
+import com.exam.search.QuestionSearchIndex;
+import com.exam.service.ExamStatusScheduler;
+import com.exam.service.SequenceService;
+import com.exam.submission.AttemptManager;
+import com.exam.submission.AutosaveBuffer;
+import com.exam.submission.SubmissionPipeline;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+
+@WebListener
+public class AppContextListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        new IndexManager(DBConnection.getDatabase()).ensureIndexes();
+
+        try {
+            SubmissionPipeline.getInstance().start();
+        } catch (Exception e) {
+            System.err.println("Error starting submission pipeline: " + e.getMessage());
+            throw new IllegalStateException(e);
+        }
+        AutosaveBuffer.getInstance().start();
+        AttemptManager.getInstance().start();
+        QuestionSearchIndex.getInstance().build(new QuestionDao().iterateAll());
+        // Hashing the whole bank can take a while; nothing waits on it, so it runs in the background
+        DuplicateIndex.startBuild(new QuestionDao().iterateAll());
+        ExamStatusScheduler.getInstance().start();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        RequestExecutor.getInstance().shutdown();
+        ExamStatusScheduler.getInstance().stop();
+        AttemptManager.getInstance().stop();
+        AutosaveBuffer.getInstance().stop();
+        SubmissionPipeline.getInstance().stop();
+        // Last, once nothing is creating users, exams or results any more
+        long released = SequenceService.getInstance().releaseUnused();
+        if (released > 0) {
+            System.out.println("Returned " + released + " unused ids to the counters");
+        }
+        DBConnection.close();
+    }
+}
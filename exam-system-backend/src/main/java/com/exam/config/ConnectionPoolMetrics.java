@@ -0,0 +1,78 @@
+package com.exam.config;
+
+import com.google.gson.JsonObject;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Live connection pool counters, fed by the driver's pool events
+public class ConnectionPoolMetrics implements ConnectionPoolListener {
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger checkedOut = new AtomicInteger();
+    private final AtomicInteger waitQueue = new AtomicInteger();
+    private final AtomicLong checkOuts = new AtomicLong();
+    private final AtomicLong checkOutFailures = new AtomicLong();
+    private final AtomicLong totalWaitMicros = new AtomicLong();
+    private final AtomicLong maxWaitMicros = new AtomicLong();
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        open.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        open.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        waitQueue.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        waitQueue.decrementAndGet();
+        checkedOut.incrementAndGet();
+        checkOuts.incrementAndGet();
+        recordWait(event.getElapsedTime(TimeUnit.MICROSECONDS));
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        waitQueue.decrementAndGet();
+        checkOutFailures.incrementAndGet();
+        recordWait(event.getElapsedTime(TimeUnit.MICROSECONDS));
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        checkedOut.decrementAndGet();
+    }
+
+    private void recordWait(long micros) {
+        totalWaitMicros.addAndGet(micros);
+        maxWaitMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public JsonObject toJson() {
+        long count = checkOuts.get() + checkOutFailures.get();
+        JsonObject json = new JsonObject();
+        json.addProperty("openConnections", open.get());
+        json.addProperty("checkedOut", checkedOut.get());
+        json.addProperty("waitQueueSize", waitQueue.get());
+        json.addProperty("checkOuts", checkOuts.get());
+        json.addProperty("checkOutFailures", checkOutFailures.get());
+        json.addProperty("avgWaitMs", count > 0 ? totalWaitMicros.get() / 1000.0 / count : 0.0);
+        json.addProperty("maxWaitMs", maxWaitMicros.get() / 1000.0);
+        return json;
+    }
+}
@@ -1,62 +1,79 @@
 package com.exam.config;
 
+import com.exam.codec.ModelCodecs;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
+// Owns the single MongoClient. Pool size, timeouts and read preference come from application.properties.
 public class DBConnection {
-    private static MongoClient mongoClient;
-    private static MongoDatabase database;
-    
-    private static String connectionString;
-    private static String dbName;
-
-    static {
-        try (InputStream input = DBConnection.class.getClassLoader().getResourceAsStream("application.properties")) {
-            Properties prop = new Properties();
-            if (input == null) {
-                System.out.println("Sorry, unable to find application.properties");
-                // Fallback defaults
-                connectionString = "mongodb://localhost:27017";
-                dbName = "exam_system_db";
-            } else {
-                prop.load(input);
-                connectionString = prop.getProperty("mongodb.uri");
-                dbName = prop.getProperty("mongodb.db");
-            }
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            // Fallback defaults
-            connectionString = "mongodb://localhost:27017";
-            dbName = "exam_system_db";
-        }
-    }
+    private static final Object lock = new Object();
+    private static final ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics();
+
+    private static volatile MongoClient mongoClient;
+    private static volatile MongoDatabase database;
 
     private DBConnection() {}
 
     public static MongoDatabase getDatabase() {
-        if (database == null) {
-            try {
-                mongoClient = MongoClients.create(connectionString);
-                database = mongoClient.getDatabase(dbName);
-                System.out.println("Connected to MongoDB successfully");
-            } catch (Exception e) {
-                System.err.println("Error connecting to MongoDB: " + e.getMessage());
-                throw e;
+        MongoDatabase db = database;
+        if (db != null) {
+            return db;
+        }
+        synchronized (lock) {
+            if (database == null) {
+                try {
+                    MongoClient client = MongoClients.create(buildSettings());
+                    database = client.getDatabase(AppConfig.get("mongodb.db", "exam_system_db"));
+                    mongoClient = client;
+                    System.out.println("Connected to MongoDB successfully");
+                } catch (Exception e) {
+                    System.err.println("Error connecting to MongoDB: " + e.getMessage());
+                    throw e;
+                }
             }
+            return database;
         }
-        return database;
+    }
+
+    public static ConnectionPoolMetrics getPoolMetrics() {
+        return poolMetrics;
     }
 
     public static void close() {
-        if (mongoClient != null) {
-            mongoClient.close();
-            mongoClient = null;
-            database = null;
+        synchronized (lock) {
+            if (mongoClient != null) {
+                mongoClient.close();
+                mongoClient = null;
+                database = null;
+            }
         }
     }
+
+    private static MongoClientSettings buildSettings() {
+        ConnectionString connectionString = new ConnectionString(AppConfig.get("mongodb.uri", "mongodb://localhost:27017"));
+        // Size maxSize to the Tomcat thread count (plus background writers) so exam-close bursts wait briefly, not forever
+        return MongoClientSettings.builder()
+                .applyConnectionString(connectionString)
+                .codecRegistry(ModelCodecs.REGISTRY)
+                .readPreference(ReadPreference.valueOf(AppConfig.get("mongodb.readPreference", "primary")))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(AppConfig.getInt("mongodb.pool.maxSize", 100))
+                        .minSize(AppConfig.getInt("mongodb.pool.minSize", 0))
+                        .maxConnecting(AppConfig.getInt("mongodb.pool.maxConnecting", 2))
+                        .maxWaitTime(AppConfig.getLong("mongodb.pool.maxWaitMs", 2000), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(AppConfig.getLong("mongodb.pool.maxIdleMs", 60000), TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(poolMetrics))
+                .applyToSocketSettings(socket -> socket
+                        .connectTimeout(AppConfig.getInt("mongodb.connectTimeoutMs", 5000), TimeUnit.MILLISECONDS)
+                        .readTimeout(AppConfig.getInt("mongodb.socketTimeoutMs", 30000), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                        .serverSelectionTimeout(AppConfig.getLong("mongodb.serverSelectionTimeoutMs", 5000), TimeUnit.MILLISECONDS))
+                .build();
+    }
 }
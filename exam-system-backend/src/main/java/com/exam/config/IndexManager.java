@@ -0,0 +1,143 @@
+package com.exam.config;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Declares the indexes the DAO queries rely on and makes sure they exist at startup.
+// mongodb.indexes.onError=fail stops the webapp when one is missing; the default only warns.
+public class IndexManager {
+
+    private static final class IndexSpec {
+        final String collection;
+        final Document keys;
+        final boolean unique;
+
+        IndexSpec(String collection, Document keys, boolean unique) {
+            this.collection = collection;
+            this.keys = keys;
+            this.unique = unique;
+        }
+
+        @Override
+        public String toString() {
+            return collection + " " + keys.toJson() + (unique ? " (unique)" : "");
+        }
+    }
+
+    private static final List<IndexSpec> REQUIRED = Arrays.asList(
+            new IndexSpec("users", new Document("email", 1), true),
+            new IndexSpec("users", new Document("userId", 1), true),
+            new IndexSpec("exams", new Document("examId", 1), true),
+            new IndexSpec("questions", new Document("questionId", 1), true),
+            new IndexSpec("questions", new Document("subject", 1).append("difficulty", 1).append("questionId", 1), false),
+            new IndexSpec("users", new Document("role", 1).append("userId", 1), false),
+            new IndexSpec("results", new Document("resultId", 1), true),
+            new IndexSpec("results", new Document("studentId", 1).append("examId", 1), false),
+            new IndexSpec("results", new Document("examId", 1), false),
+            new IndexSpec("attempts", new Document("studentId", 1).append("examId", 1), true),
+            new IndexSpec("attempts", new Document("state", 1), false),
+            new IndexSpec("attempts", new Document("resultId", 1), false)
+    );
+
+    private final MongoDatabase database;
+
+    public IndexManager(MongoDatabase database) {
+        this.database = database;
+    }
+
+    public void ensureIndexes() {
+        boolean failFast = "fail".equalsIgnoreCase(AppConfig.get("mongodb.indexes.onError", "warn"));
+        List<String> problems = new ArrayList<>();
+
+        for (IndexSpec spec : REQUIRED) {
+            try {
+                // createIndex is a no-op when an identical index already exists
+                database.getCollection(spec.collection).createIndex(spec.keys, new IndexOptions().unique(spec.unique));
+            } catch (MongoException e) {
+                // Typically duplicate values blocking a unique index, or an existing index with other options
+                problems.add("Could not create index " + spec + ": " + e.getMessage());
+            }
+        }
+
+        for (IndexSpec spec : REQUIRED) {
+            if (!exists(spec)) {
+                problems.add("Missing index " + spec);
+            }
+        }
+
+        reportUnusedIndexes();
+
+        if (problems.isEmpty()) {
+            System.out.println("All " + REQUIRED.size() + " required MongoDB indexes are in place");
+            return;
+        }
+        problems.forEach(System.err::println);
+        if (failFast) {
+            throw new IllegalStateException(problems.size() + " required MongoDB indexes are missing");
+        }
+    }
+
+    private boolean exists(IndexSpec spec) {
+        for (Document index : database.getCollection(spec.collection).listIndexes()) {
+            Document keys = index.get("key", Document.class);
+            boolean unique = Boolean.TRUE.equals(index.getBoolean("unique"));
+            if (sameKeys(spec.keys, keys) && (!spec.unique || unique)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Key order matters for compound indexes, and numbers may come back as int or double
+    private static boolean sameKeys(Document expected, Document actual) {
+        if (actual == null || expected.size() != actual.size()) {
+            return false;
+        }
+        List<String> expectedFields = new ArrayList<>(expected.keySet());
+        List<String> actualFields = new ArrayList<>(actual.keySet());
+        if (!expectedFields.equals(actualFields)) {
+            return false;
+        }
+        for (String field : expectedFields) {
+            Object a = expected.get(field);
+            Object b = actual.get(field);
+            if (a instanceof Number && b instanceof Number) {
+                if (((Number) a).intValue() != ((Number) b).intValue()) {
+                    return false;
+                }
+            } else if (!a.equals(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Indexes with no recorded use since the server last started. Advisory only: they cost writes, not correctness.
+    private void reportUnusedIndexes() {
+        for (String name : database.listCollectionNames()) {
+            MongoCollection<Document> collection = database.getCollection(name);
+            try {
+                for (Document stats : collection.aggregate(Collections.singletonList(new Document("$indexStats", new Document())))) {
+                    String indexName = stats.getString("name");
+                    Document accesses = stats.get("accesses", Document.class);
+                    long ops = accesses != null && accesses.get("ops") instanceof Number ? ((Number) accesses.get("ops")).longValue() : 0;
+                    if (ops == 0 && !"_id_".equals(indexName)) {
+                        System.out.println("Index " + name + "." + indexName + " has not been used since " +
+                                (accesses != null ? accesses.get("since") : "server start"));
+                    }
+                }
+            } catch (MongoException e) {
+                // $indexStats needs the indexStats privilege; skip quietly without it
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.exam.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Opt-in (server.virtualThreads=true): servlets hand each request to a fresh virtual thread, so a request
+// blocked on Mongo parks instead of holding a container thread. The executor is looked up reflectively
+// because the build targets Java 17; on an older runtime requests stay on the container's threads.
+public final class RequestExecutor {
+    private static final RequestExecutor INSTANCE = new RequestExecutor();
+
+    private final ExecutorService executor;
+    private final long asyncTimeoutMs;
+
+    public static RequestExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    private RequestExecutor() {
+        this.asyncTimeoutMs = AppConfig.getLong("server.asyncTimeoutMs", 0);
+        this.executor = AppConfig.getBoolean("server.virtualThreads", false) ? virtualThreadExecutor() : null;
+    }
+
+    // Null when requests should run on the container thread
+    public ExecutorService get() {
+        return executor;
+    }
+
+    // 0 means no timeout, as for a request served synchronously
+    public long getAsyncTimeoutMs() {
+        return asyncTimeoutMs;
+    }
+
+    public boolean isVirtual() {
+        return executor != null;
+    }
+
+    // Lets in-flight requests finish for a short while before the pool goes away
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(AppConfig.getLong("server.shutdownWaitMs", 5000), TimeUnit.MILLISECONDS)) {
+                System.err.println("Requests still running on virtual threads at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            System.out.println("Serving requests on virtual threads");
+            return executor;
+        } catch (NoSuchMethodException e) {
+            System.err.println("server.virtualThreads needs Java 21 or newer (running " + Runtime.version()
+                    + "); serving requests on container threads");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Could not create virtual thread executor, serving requests on container threads: " + e);
+        }
+        return null;
+    }
+}
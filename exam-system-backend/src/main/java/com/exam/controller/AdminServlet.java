@@ -1,49 +1,87 @@
 package com.exam.controller;
 
-import com.exam.dao.ExamDao;
-import com.exam.dao.QuestionDao;
+import com.exam.cache.PaperCache;
+import com.exam.config.DBConnection;
 import com.exam.dao.UserDao;
+import com.exam.grading.AnswerKeyCache;
+import com.exam.model.Page;
 import com.exam.model.User;
+import com.exam.service.StatsService;
+import com.exam.submission.SubmissionPipeline;
+import com.exam.util.JsonUtils;
+import com.exam.util.PageRequest;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-@WebServlet("/api/admin/*")
-public class AdminServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/admin/*", asyncSupported = true)
+public class AdminServlet extends AsyncHttpServlet {
     
     private final UserDao userDao = new UserDao();
-    private final ExamDao examDao = new ExamDao();
-    private final QuestionDao questionDao = new QuestionDao();
+    private final StatsService statsService = StatsService.getInstance();
     private final Gson gson = new Gson();
 
+    private static final Set<String> USER_FIELDS = new HashSet<>(Arrays.asList(
+            "userId", "fullName", "email", "role", "createdAt"));
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String pathInfo = req.getPathInfo();
         resp.setContentType("application/json");
 
         if ("/stats".equals(pathInfo)) {
-            List<User> users = userDao.findAll();
+            resp.getWriter().write(statsService.getStatsJson());
             
+        } else if ("/cache/stats".equals(pathInfo)) {
             JsonObject stats = new JsonObject();
-            stats.addProperty("totalStudents", users.stream().filter(u -> "STUDENT".equals(u.getRole())).count());
-            stats.addProperty("totalTeachers", users.stream().filter(u -> "TEACHER".equals(u.getRole())).count());
-            stats.addProperty("totalExams", examDao.findAll().size());
-            stats.addProperty("totalQuestions", questionDao.findAll().size());
-            
+            stats.add("answerKeys", AnswerKeyCache.getInstance().getStats());
+            stats.add("papers", PaperCache.getInstance().getStats());
             resp.getWriter().write(gson.toJson(stats));
-            
+
+        } else if ("/submissions".equals(pathInfo)) {
+            // Write-behind queue and result journal health
+            resp.getWriter().write(gson.toJson(SubmissionPipeline.getInstance().getStats()));
+
+        } else if ("/db/pool".equals(pathInfo)) {
+            resp.getWriter().write(gson.toJson(DBConnection.getPoolMetrics().toJson()));
+
         } else if ("/users".equals(pathInfo)) {
-            List<User> users = userDao.findAll();
-            // Remove passwords before sending
-            users.forEach(u -> u.setPassword(null));
-            resp.getWriter().write(gson.toJson(users));
+            if (!PageRequest.isRequested(req, "role")) {
+                // Passwords are excluded by the query projection
+                JsonUtils.streamArray(resp, userDao.iterateAllWithoutPasswords());
+                return;
+            }
+            try {
+                PageRequest page = PageRequest.from(req, USER_FIELDS);
+                List<User> users = userDao.findPage(page.getAfterId(), page.getLimit(), req.getParameter("role"), page.getFields());
+                String next = users.size() == page.getLimit()
+                        ? PageRequest.encodeToken(users.get(users.size() - 1).getUserId()) : null;
+                JsonUtils.sendPage(resp, new Page<>(users, next), page.getFields());
+            } catch (IllegalArgumentException e) {
+                JsonUtils.sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            }
+        } else {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        String pathInfo = req.getPathInfo();
+        resp.setContentType("application/json");
+
+        if ("/stats/rebuild".equals(pathInfo)) {
+            statsService.rebuild();
+            resp.getWriter().write(statsService.getStatsJson());
         } else {
             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
         }
@@ -0,0 +1,60 @@
+package com.exam.controller;
+
+import com.exam.config.RequestExecutor;
+import com.exam.util.JsonUtils;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+// Base for the API servlets. With server.virtualThreads on, the request is put into async mode and
+// doGet/doPost run on a virtual thread; the container thread goes straight back to the pool.
+// Handlers are unchanged and keep blocking on the DAOs. Otherwise this is plain HttpServlet.
+public abstract class AsyncHttpServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private final RequestExecutor requestExecutor = RequestExecutor.getInstance();
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        ExecutorService executor = requestExecutor.get();
+        if (executor == null || !req.isAsyncSupported() || req.isAsyncStarted()) {
+            super.service(req, resp);
+            return;
+        }
+
+        AsyncContext async = req.startAsync(req, resp);
+        async.setTimeout(requestExecutor.getAsyncTimeoutMs());
+        try {
+            executor.execute(() -> {
+                try {
+                    super.service(req, resp);
+                } catch (IOException | ServletException | RuntimeException e) {
+                    System.err.println("Error handling " + req.getMethod() + " " + req.getRequestURI() + ": " + e);
+                    if (!resp.isCommitted()) {
+                        resp.resetBuffer();
+                        try {
+                            JsonUtils.sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+                        } catch (IOException ignored) {
+                            // Client is gone
+                        }
+                    }
+                } finally {
+                    async.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down: finish on this thread
+            try {
+                super.service(req, resp);
+            } finally {
+                async.complete();
+            }
+        }
+    }
+}
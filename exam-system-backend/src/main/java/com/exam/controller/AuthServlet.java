@@ -1,23 +1,26 @@
 package com.exam.controller;
 
+import com.exam.filter.AuthFilter;
 import com.exam.model.User;
 import com.exam.service.AuthService;
+import com.exam.service.TokenService;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
-@WebServlet("/api/auth/*")
-public class AuthServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/auth/*", asyncSupported = true)
+public class AuthServlet extends AsyncHttpServlet {
     
     private final AuthService authService = new AuthService();
+    private final TokenService tokenService = TokenService.getInstance();
     private final Gson gson = new Gson();
 
     @Override
@@ -38,7 +41,7 @@ public class AuthServlet extends HttpServlet {
             if ("/login".equals(pathInfo)) {
                 handleLogin(jsonBody, resp);
             } else if ("/register".equals(pathInfo)) {
-                handleRegister(jsonBody, resp);
+                handleRegister(jsonBody, req, resp);
             } else {
                 resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
             }
@@ -53,11 +56,20 @@ public class AuthServlet extends HttpServlet {
         String email = jsonObject.get("email").getAsString();
         String password = jsonObject.get("password").getAsString();
 
-        User user = authService.login(email, password);
+        User user;
+        try {
+            user = authService.login(email, password);
+        } catch (RejectedExecutionException e) {
+            // Password workers are saturated; shed load instead of queueing request threads
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            resp.setHeader("Retry-After", "2");
+            resp.getWriter().write("{\"error\": \"Login service is busy, please retry\"}");
+            return;
+        }
 
         if (user != null) {
-            // Create a simple token (in production use JWT)
-            String token = "mock-jwt-token-" + user.getUserId() + "-" + System.currentTimeMillis();
+            // Signed token carrying userId, role and expiry
+            String token = tokenService.issue(user);
             
             JsonObject response = new JsonObject();
             response.addProperty("token", token);
@@ -70,13 +82,32 @@ public class AuthServlet extends HttpServlet {
         }
     }
 
-    private void handleRegister(String jsonBody, HttpServletResponse resp) throws IOException {
+    private void handleRegister(String jsonBody, HttpServletRequest req, HttpServletResponse resp) throws IOException {
         User newUser = gson.fromJson(jsonBody, User.class);
-        
+
+        // Self-registration always makes a student; only an admin's token can create staff accounts
+        String role = newUser.getRole() == null || newUser.getRole().trim().isEmpty()
+                ? "STUDENT" : newUser.getRole().trim().toUpperCase();
+        if (!"STUDENT".equals(role) && !"TEACHER".equals(role) && !"ADMIN".equals(role)) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write("{\"error\": \"Unknown role\"}");
+            return;
+        }
+        if (!"STUDENT".equals(role) && !"ADMIN".equals(req.getAttribute(AuthFilter.ROLE_ATTRIBUTE))) {
+            resp.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            resp.getWriter().write("{\"error\": \"Only an admin can create " + role + " accounts\"}");
+            return;
+        }
+        newUser.setRole(role);
+
         try {
             User createdUser = authService.register(newUser);
             resp.setStatus(HttpServletResponse.SC_CREATED);
             resp.getWriter().write(gson.toJson(createdUser));
+        } catch (RejectedExecutionException e) {
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            resp.setHeader("Retry-After", "2");
+            resp.getWriter().write("{\"error\": \"Registration service is busy, please retry\"}");
         } catch (RuntimeException e) {
             resp.setStatus(HttpServletResponse.SC_CONFLICT);
             resp.getWriter().write("{\"error\": \"" + e.getMessage() + "\"}");
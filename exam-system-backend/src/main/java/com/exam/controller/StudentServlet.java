@@ -1,17 +1,25 @@
 package com.exam.controller;
 
+import com.exam.cache.ExamCatalogCache;
+import com.exam.cache.PaperCache;
+import com.exam.cache.PublishedPaper;
+import com.exam.cache.TakenExamsCache;
 import com.exam.dao.ExamDao;
 import com.exam.dao.QuestionDao;
 import com.exam.dao.ResultDao;
+import com.exam.filter.AuthFilter;
 import com.exam.model.Exam;
 import com.exam.model.ExamResult;
-import com.exam.model.Question;
+import com.exam.model.Attempt;
+import com.exam.service.ExamStatusScheduler;
+import com.exam.submission.AttemptManager;
+import com.exam.submission.AutosaveBuffer;
+import com.exam.submission.SubmissionPipeline;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -20,28 +28,24 @@ import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 
-@WebServlet("/api/student/*")
-public class StudentServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/student/*", asyncSupported = true)
+public class StudentServlet extends AsyncHttpServlet {
     
     private final ExamDao examDao = new ExamDao();
     private final QuestionDao questionDao = new QuestionDao();
     private final ResultDao resultDao = new ResultDao();
-    private final com.exam.dao.UserDao userDao = new com.exam.dao.UserDao();
+    private final SubmissionPipeline submissionPipeline = SubmissionPipeline.getInstance();
+    private final AutosaveBuffer autosave = AutosaveBuffer.getInstance();
+    private final AttemptManager attempts = AttemptManager.getInstance();
+    private final ExamCatalogCache examCatalog = ExamCatalogCache.getInstance();
+    private final TakenExamsCache takenExams = TakenExamsCache.getInstance();
+    private final PaperCache paperCache = PaperCache.getInstance();
     private final Gson gson = new Gson();
 
+    // Verified by AuthFilter from the signed bearer token
     private int getUserIdFromToken(HttpServletRequest req) {
-        String authHeader = req.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            if (token.startsWith("mock-jwt-token-")) {
-                try {
-                    return Integer.parseInt(token.substring("mock-jwt-token-".length()));
-                } catch (NumberFormatException e) {
-                    return 0;
-                }
-            }
-        }
-        return 0;
+        Object userId = req.getAttribute(AuthFilter.USER_ID_ATTRIBUTE);
+        return userId instanceof Integer ? (Integer) userId : 0;
     }
 
     @Override
@@ -51,28 +55,39 @@ public class StudentServlet extends HttpServlet {
 
         if ("/dashboard".equals(pathInfo)) {
             // In a real app, filter by student's enrolled courses/exams
-            List<Exam> exams = examDao.findAll();
+            ExamCatalogCache.Snapshot catalog = examCatalog.get(examDao::findAll);
             
             // Check for exams already taken by this student
             int studentId = getUserIdFromToken(req);
-            List<Integer> takenExamIds = resultDao.findExamIdsByStudentId(studentId);
+            TakenExamsCache.Taken taken = takenExams.get(studentId, resultDao::findExamIdsByStudentId);
             
-            for (Exam exam : exams) {
-                if (takenExamIds.contains(exam.getExamId())) {
-                    exam.setStatus("COMPLETED");
+            StringBuilder json = new StringBuilder(64 + catalog.size() * 256);
+            json.append("{\"exams\":[");
+            int upcoming = 0;
+            int completed = 0;
+            for (int i = 0; i < catalog.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                String status = catalog.getStatus(i);
+                if (taken.contains(catalog.getExamId(i))) {
+                    status = "COMPLETED";
+                    json.append(catalog.getCompletedJson(i));
+                } else {
+                    json.append(catalog.getJson(i));
+                }
+                if ("UPCOMING".equals(status) || "ONGOING".equals(status)) {
+                    upcoming++;
+                } else if ("COMPLETED".equals(status)) {
+                    completed++;
                 }
             }
+            json.append("],\"stats\":{\"upcomingExams\":").append(upcoming)
+                    .append(",\"completedExams\":").append(completed)
+                    .append(",\"totalExams\":").append(catalog.size())
+                    .append("}}");
             
-            JsonObject response = new JsonObject();
-            response.add("exams", gson.toJsonTree(exams));
-            // Add dummy stats
-            JsonObject stats = new JsonObject();
-            stats.addProperty("upcomingExams", exams.stream().filter(e -> "UPCOMING".equals(e.getStatus()) || "ONGOING".equals(e.getStatus())).count());
-            stats.addProperty("completedExams", exams.stream().filter(e -> "COMPLETED".equals(e.getStatus())).count());
-            stats.addProperty("totalExams", exams.size());
-            response.add("stats", stats);
-            
-            resp.getWriter().write(gson.toJson(response));
+            resp.getWriter().write(json.toString());
             
         } else if (pathInfo != null && pathInfo.startsWith("/exam/")) {
             // Extract ID and action
@@ -90,28 +105,22 @@ public class StudentServlet extends HttpServlet {
                             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
                         }
                     } else if (parts.length == 4 && "questions".equals(parts[3])) {
-                        // GET /exam/{id}/questions
-                        Exam exam = examDao.findById(examId);
-                        if (exam == null) {
+                        // GET /exam/{id}/questions - served from the published paper cache
+                        PublishedPaper paper = paperCache.get(examId, this::loadPaper);
+                        if (paper == null) {
                             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
                             return;
                         }
-
-                        List<Question> questions;
-                        if (exam.getQuestionIds() != null && !exam.getQuestionIds().isEmpty()) {
-                            // Fetch specific questions selected by the teacher
-                            questions = questionDao.findQuestionsByIds(exam.getQuestionIds());
-                        } else {
-                            // Fallback: Fetch all questions if no specific ones are linked
-                            questions = questionDao.findAll();
+                        boolean shared = !paper.isPerStudent();
+                        if (!shared) {
+                            // Each student draws their own questions, so their paper is built per request
+                            paper = loadStudentPaper(examId, getUserIdFromToken(req));
+                            if (paper == null) {
+                                resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                                return;
+                            }
                         }
-                        
-                        // Hide answers before sending to student
-                        questions.forEach(q -> {
-                            q.setCorrectAnswer(-1); 
-                        });
-                        
-                        resp.getWriter().write(gson.toJson(questions));
+                        writePaper(req, resp, paper, shared);
                     }
                 } catch (NumberFormatException e) {
                     resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
@@ -121,7 +130,10 @@ public class StudentServlet extends HttpServlet {
              // GET /results/{id}
              try {
                  int resultId = Integer.parseInt(pathInfo.substring("/results/".length()));
-                 ExamResult result = resultDao.findById(resultId);
+                 ExamResult result = submissionPipeline.findPending(resultId);
+                 if (result == null) {
+                     result = resultDao.findById(resultId);
+                 }
                  
                  if (result != null) {
                      resp.getWriter().write(gson.toJson(result));
@@ -136,62 +148,195 @@ public class StudentServlet extends HttpServlet {
         }
     }
 
+    private PublishedPaper loadPaper(int examId) {
+        Exam exam = examDao.findById(examId);
+        if (exam == null) {
+            return null;
+        }
+        if (exam.getQuestionIds() != null && !exam.getQuestionIds().isEmpty()) {
+            // Fetch specific questions selected by the teacher
+            return PublishedPaper.build(exam, questionDao.findQuestionsByIds(exam.getQuestionIds()), false);
+        }
+        // Fallback: Fetch all questions if no specific ones are linked
+        return PublishedPaper.build(exam, questionDao.findAll(), true);
+    }
+
+    private PublishedPaper loadStudentPaper(int examId, int studentId) {
+        Exam exam = examDao.findById(examId);
+        if (exam == null) {
+            return null;
+        }
+        List<Integer> questionIds = attempts.questionIdsFor(studentId, exam);
+        if (questionIds == null || questionIds.isEmpty()) {
+            return loadPaper(examId);
+        }
+        return PublishedPaper.build(exam, questionDao.findQuestionsByIds(questionIds), false);
+    }
+
+    // shared: the cached paper, whose gzip copy is made once and reused. A per-student one is sent as is.
+    private void writePaper(HttpServletRequest req, HttpServletResponse resp, PublishedPaper paper, boolean shared)
+            throws IOException {
+        int studentId = getUserIdFromToken(req);
+        String etag = paper.getEtag(studentId);
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Cache-Control", "private, no-cache");
+        resp.setHeader("Vary", "Accept-Encoding");
+
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if (paper.isShuffled()) {
+            // Per-student order over the cached pieces; not worth compressing per request
+            resp.setCharacterEncoding("UTF-8");
+            paper.writeShuffled(resp.getOutputStream(), studentId);
+            return;
+        }
+
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        byte[] body;
+        if (shared && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            resp.setHeader("Content-Encoding", "gzip");
+            body = paper.getGzip();
+        } else {
+            body = paper.getJson();
+        }
+        resp.setCharacterEncoding("UTF-8");
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+
+    // If-None-Match is "*" or a comma-separated list of entity tags, each compared whole. A weak tag (W/"...")
+    // matches its strong form, as RFC 9110 asks for this header.
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String pathInfo = req.getPathInfo();
         resp.setContentType("application/json");
 
-        if (pathInfo != null && pathInfo.endsWith("/submit")) {
+        if (pathInfo != null && pathInfo.startsWith("/exam/") && pathInfo.endsWith("/start")) {
+            // POST /exam/{id}/start - starts the timed attempt, or resumes it after a reload
+            try {
+                int examId = Integer.parseInt(pathInfo.split("/")[2]);
+                Exam exam = examDao.findById(examId);
+                if (exam == null) {
+                    resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
+                // Only scheduled exams have a window to enforce; the rest can be taken whenever they are listed
+                String status = ExamStatusScheduler.computeStatus(exam, System.currentTimeMillis());
+                if (ExamStatusScheduler.startOf(exam) >= 0 && !ExamStatusScheduler.ONGOING.equals(status)) {
+                    resp.setStatus(HttpServletResponse.SC_CONFLICT);
+                    resp.getWriter().write(ExamStatusScheduler.UPCOMING.equals(status)
+                            ? "{\"error\": \"Exam has not started yet\"}" : "{\"error\": \"Exam is over\"}");
+                    return;
+                }
+                Attempt attempt = attempts.startAttempt(getUserIdFromToken(req), exam);
+                if (attempt == null || !Attempt.IN_PROGRESS.equals(attempt.getState())) {
+                    resp.setStatus(HttpServletResponse.SC_CONFLICT);
+                    resp.getWriter().write("{\"error\": \"Exam already submitted\"}");
+                    return;
+                }
+                JsonObject json = new JsonObject();
+                json.addProperty("examId", examId);
+                json.addProperty("state", attempt.getState());
+                json.addProperty("startedAt", attempt.getStartedAt());
+                json.addProperty("deadline", attempt.getDeadline());
+                json.addProperty("remainingSeconds",
+                        Math.max(0, (attempt.getDeadline() - System.currentTimeMillis()) / 1000));
+                resp.getWriter().write(json.toString());
+            } catch (NumberFormatException e) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            }
+        } else if (pathInfo != null && pathInfo.startsWith("/exam/") && pathInfo.endsWith("/autosave")) {
+            // POST /exam/{id}/autosave - {"answers": {questionId: option}} with only the changed questions
+            String[] parts = pathInfo.split("/");
+            try {
+                int examId = Integer.parseInt(parts[2]);
+                JsonObject body = gson.fromJson(req.getReader(), JsonObject.class);
+                Type type = new TypeToken<Map<Integer, Integer>>(){}.getType();
+                Map<Integer, Integer> answers = body != null ? gson.fromJson(body.get("answers"), type) : null;
+                if (answers == null) {
+                    resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                    resp.getWriter().write("{\"error\": \"answers is required\"}");
+                    return;
+                }
+
+                int studentId = getUserIdFromToken(req);
+                // In-memory check; autosave runs far more often than submit
+                if (!attempts.isActive(studentId, examId)) {
+                    resp.setStatus(HttpServletResponse.SC_CONFLICT);
+                    resp.getWriter().write("{\"error\": \"No attempt in progress for this exam\"}");
+                    return;
+                }
+
+                if (!autosave.record(studentId, examId, answers)) {
+                    resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    resp.setHeader("Retry-After", String.valueOf(submissionPipeline.getRetryAfterSeconds()));
+                    resp.getWriter().write("{\"error\": \"Autosave is busy, please retry\"}");
+                    return;
+                }
+                resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            } catch (NumberFormatException | com.google.gson.JsonParseException e) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            }
+        } else if (pathInfo != null && pathInfo.endsWith("/submit")) {
             // Extract examId from path /exam/{id}/submit
             String[] parts = pathInfo.split("/");
             if (parts.length >= 4) {
                 try {
                     int examId = Integer.parseInt(parts[2]);
                     
-                    // Parse answers from body
+                    // Parse answers from body. Optional now: it only needs what autosave has not sent yet.
                     JsonObject body = gson.fromJson(req.getReader(), JsonObject.class);
                     Type type = new TypeToken<Map<Integer, Integer>>(){}.getType();
-                    Map<Integer, Integer> answers = gson.fromJson(body.get("answers"), type);
+                    Map<Integer, Integer> submitted = body != null ? gson.fromJson(body.get("answers"), type) : null;
                     
-                    // Calculate Score
-                    List<Question> questions = questionDao.findAll(); // Should filter by exam
-                    int score = 0;
-                    int totalMarks = 0;
-                    
-                    for (Question q : questions) {
-                        totalMarks += q.getMarks();
-                        if (answers.containsKey(q.getQuestionId())) {
-                            int selected = answers.get(q.getQuestionId());
-                            if (selected == q.getCorrectAnswer()) {
-                                score += q.getMarks();
-                            }
-                        }
-                    }
-                    
-                    // Save Result
                     Exam exam = examDao.findById(examId);
-                    ExamResult result = new ExamResult();
-                    result.setExamId(examId);
-                    result.setExamTitle(exam != null ? exam.getTitle() : "Unknown Exam");
-                    
-                    int studentId = getUserIdFromToken(req);
-                    result.setStudentId(studentId);
-                    
-                    com.exam.model.User student = userDao.findById(studentId); // Assuming findById exists or implement it
-                    if (student != null) {
-                        result.setStudentName(student.getFullName());
-                        result.setStudentEmail(student.getEmail());
-                    } else {
-                        result.setStudentName("Unknown Student");
-                        result.setStudentEmail("unknown@example.com");
+                    if (exam == null) {
+                        resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                        return;
                     }
 
-                    result.setScore(score);
-                    result.setTotalMarks(totalMarks);
-                    result.setPercentage(totalMarks > 0 ? (score * 100) / totalMarks : 0);
-                    result.setSubmittedAt(java.time.Instant.now().toString());
-                    
-                    resultDao.saveResult(result);
+                    // Grade the autosaved sheet with the final answers from the body on top
+                    int studentId = getUserIdFromToken(req);
+                    AttemptManager.SubmitOutcome outcome = attempts.submit(studentId, exam, submitted);
+                    switch (outcome.getStatus()) {
+                        case NOT_STARTED:
+                            resp.setStatus(HttpServletResponse.SC_CONFLICT);
+                            resp.getWriter().write("{\"error\": \"Start the exam before submitting\"}");
+                            return;
+                        case ALREADY_SUBMITTED:
+                            resp.setStatus(HttpServletResponse.SC_CONFLICT);
+                            resp.getWriter().write("{\"error\": \"Exam already submitted\"}");
+                            return;
+                        case EXPIRED:
+                            resp.setStatus(HttpServletResponse.SC_CONFLICT);
+                            resp.getWriter().write("{\"error\": \"Time is up; any saved answers have been submitted\"}");
+                            return;
+                        case BUSY:
+                            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                            resp.setHeader("Retry-After", String.valueOf(submissionPipeline.getRetryAfterSeconds()));
+                            resp.getWriter().write("{\"error\": \"Too many submissions, please retry\"}");
+                            return;
+                        default:
+                            break;
+                    }
+                    ExamResult result = outcome.getResult();
                     
                     resp.setStatus(HttpServletResponse.SC_OK);
                     resp.getWriter().write(gson.toJson(result));
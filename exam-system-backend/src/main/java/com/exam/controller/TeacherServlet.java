@@ -1,59 +1,180 @@
 package com.exam.controller;
 
+import com.exam.cache.ExamCatalogCache;
 import com.exam.dao.ExamDao;
 import com.exam.dao.QuestionDao;
 import com.exam.dao.ResultDao;
+import com.exam.grading.AnswerKey;
+import com.exam.grading.AnswerKeyCache;
+import com.exam.grading.ExamStatsRegistry;
+import com.exam.grading.GradingEngine;
+import com.exam.grading.ItemAnalysis;
+import com.exam.model.Blueprint;
 import com.exam.model.Exam;
 import com.exam.model.ExamResult;
+import com.exam.model.Page;
 import com.exam.model.Question;
+import com.exam.search.DuplicateIndex;
+import com.exam.search.QuestionSearchIndex;
+import com.exam.service.BlueprintResolver;
+import com.exam.service.QuestionImportService;
+import com.exam.util.JsonUtils;
+import com.exam.util.PageRequest;
 import com.google.gson.Gson;
+import com.mongodb.client.MongoCursor;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
-@WebServlet("/api/teacher/*")
-public class TeacherServlet extends HttpServlet {
+@WebServlet(urlPatterns = "/api/teacher/*", asyncSupported = true)
+public class TeacherServlet extends AsyncHttpServlet {
     
     private final QuestionDao questionDao = new QuestionDao();
     private final ExamDao examDao = new ExamDao();
     private final ResultDao resultDao = new ResultDao();
+    private final ExamCatalogCache examCatalog = ExamCatalogCache.getInstance();
+    private final ExamStatsRegistry examStats = ExamStatsRegistry.getInstance();
+    private final GradingEngine gradingEngine = new GradingEngine(questionDao);
+    private final QuestionImportService importService = new QuestionImportService(questionDao);
+    private final QuestionSearchIndex searchIndex = QuestionSearchIndex.getInstance();
+    private final DuplicateIndex duplicateIndex = DuplicateIndex.getInstance();
+    private final BlueprintResolver blueprintResolver = new BlueprintResolver(searchIndex);
     private final Gson gson = new Gson();
 
+    private static final Set<String> QUESTION_FIELDS = new HashSet<>(Arrays.asList(
+            "questionId", "questionText", "options", "correctAnswer", "subject", "difficulty", "marks"));
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         String pathInfo = req.getPathInfo();
         resp.setContentType("application/json");
 
         if ("/questions".equals(pathInfo)) {
-            List<Question> questions = questionDao.findAll();
-            resp.getWriter().write(gson.toJson(questions));
+            if (!PageRequest.isRequested(req, "subject", "difficulty")) {
+                // Unpaged listing keeps the original plain-array shape
+                JsonUtils.streamArray(resp, questionDao.iterateAll());
+                return;
+            }
+            try {
+                PageRequest page = PageRequest.from(req, QUESTION_FIELDS);
+                List<Question> questions = questionDao.findPage(page.getAfterId(), page.getLimit(),
+                        req.getParameter("subject"), req.getParameter("difficulty"), page.getFields());
+                String next = questions.size() == page.getLimit()
+                        ? PageRequest.encodeToken(questions.get(questions.size() - 1).getQuestionId()) : null;
+                JsonUtils.sendPage(resp, new Page<>(questions, next), page.getFields());
+            } catch (IllegalArgumentException e) {
+                JsonUtils.sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            }
+        } else if ("/questions/search".equals(pathInfo)) {
+            // GET /questions/search?q=&subject=&difficulty=&marks= - answered from the in-memory index
+            try {
+                PageRequest page = PageRequest.from(req, QUESTION_FIELDS);
+                String marks = req.getParameter("marks");
+                QuestionSearchIndex.Result found = searchIndex.search(req.getParameter("q"),
+                        req.getParameter("subject"), req.getParameter("difficulty"),
+                        marks != null ? Integer.valueOf(marks) : null, page.getAfterId(), page.getLimit());
+
+                int[] ids = found.getQuestionIds();
+                List<Integer> idList = new ArrayList<>(ids.length);
+                for (int id : ids) {
+                    idList.add(id);
+                }
+                List<Question> questions = questionDao.findQuestionsByIds(idList);
+                questions.sort(Comparator.comparingInt(Question::getQuestionId));
+                String next = ids.length == page.getLimit() ? PageRequest.encodeToken(ids[ids.length - 1]) : null;
+                resp.setHeader("X-Total-Count", String.valueOf(found.getTotal()));
+                JsonUtils.sendPage(resp, new Page<>(questions, next), page.getFields());
+            } catch (IllegalArgumentException e) {
+                JsonUtils.sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            }
+        } else if ("/questions/duplicates".equals(pathInfo)) {
+            // GET /questions/duplicates - near-duplicate clusters from the MinHash index
+            if (!duplicateIndex.isBuilt()) {
+                resp.setHeader("Retry-After", "30");
+                JsonUtils.sendError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Duplicate index is still building");
+                return;
+            }
+            resp.getWriter().write(gson.toJson(duplicateIndex.report()));
+        } else if ("/questions/export".equals(pathInfo)) {
+            // GET /questions/export?format=csv|jsonl - streamed from the cursor
+            String format = req.getParameter("format") != null ? req.getParameter("format") : "csv";
+            resp.setCharacterEncoding("UTF-8");
+            if ("csv".equalsIgnoreCase(format)) {
+                resp.setContentType("text/csv");
+                resp.setHeader("Content-Disposition", "attachment; filename=\"questions.csv\"");
+                importService.exportCsv(resp.getWriter());
+            } else if ("jsonl".equalsIgnoreCase(format)) {
+                resp.setContentType("application/x-ndjson");
+                resp.setHeader("Content-Disposition", "attachment; filename=\"questions.jsonl\"");
+                importService.exportJsonLines(resp.getWriter());
+            } else {
+                JsonUtils.sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "format must be csv or jsonl");
+            }
         } else if ("/dashboard".equals(pathInfo)) {
-            List<Exam> exams = examDao.findAll();
-            List<Question> questions = questionDao.findAll();
-            
-            com.google.gson.JsonObject response = new com.google.gson.JsonObject();
-            response.add("exams", gson.toJsonTree(exams));
-            
-            com.google.gson.JsonObject stats = new com.google.gson.JsonObject();
-            stats.addProperty("totalExams", exams.size());
-            stats.addProperty("totalQuestions", questions.size());
-            stats.addProperty("upcomingExams", exams.stream().filter(e -> "UPCOMING".equals(e.getStatus())).count());
-            stats.addProperty("completedExams", exams.stream().filter(e -> "COMPLETED".equals(e.getStatus())).count());
-            
-            response.add("stats", stats);
-            resp.getWriter().write(gson.toJson(response));
+            // Same pre-rendered catalog the student dashboard uses; statuses are kept current by ExamStatusScheduler
+            ExamCatalogCache.Snapshot catalog = examCatalog.get(examDao::findAll);
+            StringBuilder json = new StringBuilder(64 + catalog.size() * 256);
+            json.append("{\"exams\":[");
+            int upcoming = 0;
+            int completed = 0;
+            for (int i = 0; i < catalog.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(catalog.getJson(i));
+                String status = catalog.getStatus(i);
+                if ("UPCOMING".equals(status)) {
+                    upcoming++;
+                } else if ("COMPLETED".equals(status)) {
+                    completed++;
+                }
+            }
+            json.append("],\"stats\":{\"totalExams\":").append(catalog.size())
+                    .append(",\"totalQuestions\":").append(questionDao.count())
+                    .append(",\"upcomingExams\":").append(upcoming)
+                    .append(",\"completedExams\":").append(completed)
+                    .append("}}");
+            resp.getWriter().write(json.toString());
+        } else if (pathInfo != null && pathInfo.matches("/exams/\\d+/stats")) {
+            // GET /exams/{id}/stats - maintained as results are saved, so no scan per request
+            try {
+                int examId = Integer.parseInt(pathInfo.split("/")[2]);
+                resp.getWriter().write(gson.toJson(examStats.get(examId, resultDao)));
+            } catch (NumberFormatException e) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            }
+        } else if (pathInfo != null && pathInfo.matches("/exams/\\d+/items")) {
+            // GET /exams/{id}/items - item analysis, one pass over the exam's answer sheets
+            try {
+                int examId = Integer.parseInt(pathInfo.split("/")[2]);
+                Exam exam = examDao.findById(examId);
+                if (exam == null) {
+                    resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
+                AnswerKey key = AnswerKeyCache.getInstance().get(exam, gradingEngine::compileKey);
+                try (MongoCursor<ExamResult> cursor = resultDao.iterateAnswerSheetsByExamId(examId).iterator()) {
+                    resp.getWriter().write(gson.toJson(ItemAnalysis.analyze(examId, key, cursor)));
+                }
+            } catch (NumberFormatException e) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            }
         } else if (pathInfo != null && pathInfo.matches("/exams/\\d+/results")) {
             // GET /exams/{id}/results
             try {
                 String[] parts = pathInfo.split("/");
                 int examId = Integer.parseInt(parts[2]);
-                List<ExamResult> results = resultDao.findByExamId(examId);
-                resp.getWriter().write(gson.toJson(results));
+                JsonUtils.streamArray(resp, resultDao.iterateByExamId(examId));
             } catch (NumberFormatException e) {
                 resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             }
@@ -70,13 +191,79 @@ public class TeacherServlet extends HttpServlet {
         if ("/questions".equals(pathInfo)) {
             Question newQuestion = gson.fromJson(req.getReader(), Question.class);
             questionDao.createQuestion(newQuestion);
+            List<Integer> duplicates = duplicateIndex.duplicatesOf(newQuestion);
+            if (!duplicates.isEmpty()) {
+                // Created anyway; the header lets the editor warn about likely copies
+                StringBuilder ids = new StringBuilder();
+                for (int questionId : duplicates) {
+                    ids.append(ids.length() > 0 ? "," : "").append(questionId);
+                }
+                resp.setHeader("X-Near-Duplicates", ids.toString());
+            }
             resp.setStatus(HttpServletResponse.SC_CREATED);
             resp.getWriter().write(gson.toJson(newQuestion));
+        } else if ("/questions/import".equals(pathInfo)) {
+            // POST /questions/import?format=csv|jsonl - raw CSV or JSON Lines body
+            String format = req.getParameter("format");
+            if (format == null) {
+                String contentType = req.getContentType();
+                format = contentType != null && contentType.startsWith("text/csv") ? "csv" : "jsonl";
+            }
+            if (req.getCharacterEncoding() == null) {
+                req.setCharacterEncoding("UTF-8");
+            }
+            try {
+                if ("csv".equalsIgnoreCase(format)) {
+                    resp.getWriter().write(gson.toJson(importService.importCsv(req.getReader())));
+                } else if ("jsonl".equalsIgnoreCase(format)) {
+                    resp.getWriter().write(gson.toJson(importService.importJsonLines(req.getReader())));
+                } else {
+                    JsonUtils.sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "format must be csv or jsonl");
+                }
+            } catch (IllegalArgumentException e) {
+                JsonUtils.sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            } catch (IOException e) {
+                // Rows before the unreadable part are already stored
+                JsonUtils.sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Could not read upload: " + e.getMessage());
+            }
+        } else if ("/questions/duplicates/rebuild".equals(pathInfo)) {
+            // POST /questions/duplicates/rebuild - re-stream the bank; the current clusters stay readable meanwhile
+            if (!DuplicateIndex.startBuild(questionDao.iterateAll())) {
+                JsonUtils.sendError(resp, HttpServletResponse.SC_CONFLICT, "A rebuild is already running");
+                return;
+            }
+            resp.setStatus(HttpServletResponse.SC_ACCEPTED);
+            resp.getWriter().write("{\"status\": \"building\"}");
         } else if ("/exams".equals(pathInfo)) {
             Exam newExam = gson.fromJson(req.getReader(), Exam.class);
+            Blueprint blueprint = newExam.getBlueprint();
+            if (blueprint != null && blueprint.getRules() != null && !blueprint.getRules().isEmpty()) {
+                // Resolve once here; per-student exams keep this set as the fallback and draw their own at start
+                try {
+                    List<Integer> questionIds = blueprintResolver.resolve(blueprint, ThreadLocalRandom.current().nextLong());
+                    int marks = 0;
+                    for (int questionId : questionIds) {
+                        marks += searchIndex.marksOf(questionId);
+                    }
+                    newExam.setQuestionIds(questionIds);
+                    newExam.setTotalQuestions(questionIds.size());
+                    newExam.setTotalMarks(marks);
+                } catch (IllegalArgumentException e) {
+                    JsonUtils.sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                    return;
+                }
+            }
             examDao.createExam(newExam);
             resp.setStatus(HttpServletResponse.SC_CREATED);
             resp.getWriter().write(gson.toJson(newExam));
+        } else if (pathInfo != null && pathInfo.matches("/exams/\\d+/stats/rebuild")) {
+            // POST /exams/{id}/stats/rebuild - recount from the results collection
+            try {
+                int examId = Integer.parseInt(pathInfo.split("/")[2]);
+                resp.getWriter().write(gson.toJson(examStats.rebuild(examId, resultDao)));
+            } catch (NumberFormatException e) {
+                resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            }
         } else {
             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
         }
@@ -0,0 +1,270 @@
+package com.exam.dao;
+
+import com.exam.config.DBConnection;
+import com.exam.model.Attempt;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One document per (studentId, examId), guarded by a unique index. Every state change is a
+// conditional update on the current state, so submit and expiry cannot both win.
+public class AttemptDao {
+    private final MongoCollection<Document> collection;
+
+    // Answers changed since the last flush for one attempt
+    public static final class AnswerDelta {
+        final int studentId;
+        final int examId;
+        final Map<Integer, Integer> answers;
+
+        public AnswerDelta(int studentId, int examId, Map<Integer, Integer> answers) {
+            this.studentId = studentId;
+            this.examId = examId;
+            this.answers = answers;
+        }
+    }
+
+    // Identifies one attempt
+    public static final class Key {
+        final int studentId;
+        final int examId;
+
+        public Key(int studentId, int examId) {
+            this.studentId = studentId;
+            this.examId = examId;
+        }
+    }
+
+    // An attempt the timer found past its deadline, and the resultId reserved for it
+    public static final class Expiry {
+        final int studentId;
+        final int examId;
+        final int resultId;
+
+        public Expiry(int studentId, int examId, int resultId) {
+            this.studentId = studentId;
+            this.examId = examId;
+            this.resultId = resultId;
+        }
+    }
+
+    public AttemptDao() {
+        MongoDatabase database = DBConnection.getDatabase();
+        this.collection = database.getCollection("attempts");
+    }
+
+    // Saves a per-student draw the first time the paper is fetched and returns the draw that is stored,
+    // which is the earlier one if the student (or a concurrent request) already has it
+    public List<Integer> saveDraw(int studentId, int examId, List<Integer> questionIds) {
+        Bson update = Updates.combine(Updates.setOnInsert("state", Attempt.DRAWN),
+                Updates.setOnInsert("questionIds", questionIds));
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER);
+        Attempt attempt;
+        try {
+            attempt = toAttempt(collection.findOneAndUpdate(attemptFilter(studentId, examId), update, options));
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+            attempt = find(studentId, examId);
+        }
+        // An attempt started before the exam drew per student has no draw of its own
+        return attempt != null && attempt.getQuestionIds() != null ? attempt.getQuestionIds() : questionIds;
+    }
+
+    // Creates the attempt, or returns the existing one unchanged so a reloaded page resumes it
+    // questionIds is only stored for per-student blueprint exams (null otherwise), and never replaces
+    // the draw saved when the paper was fetched
+    public Attempt start(int studentId, int examId, long startedAt, long deadline, List<Integer> questionIds) {
+        Bson drawn = Filters.and(attemptFilter(studentId, examId), Filters.eq("state", Attempt.DRAWN));
+        Attempt started = toAttempt(collection.findOneAndUpdate(drawn, Updates.combine(
+                        Updates.set("state", Attempt.IN_PROGRESS), Updates.set("startedAt", startedAt),
+                        Updates.set("deadline", deadline)),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
+        if (started != null) {
+            return started;
+        }
+
+        List<Bson> updates = new ArrayList<>();
+        updates.add(Updates.setOnInsert("state", Attempt.IN_PROGRESS));
+        updates.add(Updates.setOnInsert("startedAt", startedAt));
+        updates.add(Updates.setOnInsert("deadline", deadline));
+        if (questionIds != null) {
+            updates.add(Updates.setOnInsert("questionIds", questionIds));
+        }
+        Bson update = Updates.combine(updates);
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER);
+        try {
+            return toAttempt(collection.findOneAndUpdate(attemptFilter(studentId, examId), update, options));
+        } catch (MongoWriteException e) {
+            // Two concurrent upserts: the loser sees the winner's document
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return find(studentId, examId);
+            }
+            throw e;
+        }
+    }
+
+    public Attempt find(int studentId, int examId) {
+        return toAttempt(collection.find(attemptFilter(studentId, examId)).first());
+    }
+
+    // IN_PROGRESS -> SUBMITTED if the deadline (minus grace) has not passed. Returns null when the transition lost.
+    public Attempt submit(int studentId, int examId, int resultId, long now, long notBefore) {
+        Bson filter = Filters.and(attemptFilter(studentId, examId),
+                Filters.eq("state", Attempt.IN_PROGRESS), Filters.gte("deadline", notBefore));
+        Bson update = Updates.combine(Updates.set("state", Attempt.SUBMITTED),
+                Updates.set("endedAt", now), Updates.set("resultId", resultId));
+        return toAttempt(collection.findOneAndUpdate(filter, update,
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.AFTER)));
+    }
+
+    // Undo a submit whose result could not be queued, so the student can retry
+    public void reopen(int studentId, int examId, int resultId) {
+        Bson filter = Filters.and(attemptFilter(studentId, examId), Filters.eq("resultId", resultId));
+        collection.updateOne(filter, Updates.combine(Updates.set("state", Attempt.IN_PROGRESS),
+                Updates.unset("endedAt"), Updates.unset("resultId")));
+    }
+
+    // One bulk write moving every still-running, overdue attempt to EXPIRED with its reserved resultId,
+    // then one read of the ones that actually moved (with their answers)
+    public List<Attempt> expire(List<Expiry> batch, long now) {
+        if (batch.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+        List<Integer> resultIds = new ArrayList<>(batch.size());
+        for (Expiry expiry : batch) {
+            Bson filter = Filters.and(attemptFilter(expiry.studentId, expiry.examId),
+                    Filters.eq("state", Attempt.IN_PROGRESS), Filters.lte("deadline", now));
+            writes.add(new UpdateOneModel<>(filter, Updates.combine(Updates.set("state", Attempt.EXPIRED),
+                    Updates.set("endedAt", now), Updates.set("resultId", expiry.resultId))));
+            resultIds.add(expiry.resultId);
+        }
+        collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+
+        List<Attempt> expired = new ArrayList<>(batch.size());
+        for (Document doc : collection.find(Filters.and(Filters.in("resultId", resultIds),
+                Filters.eq("state", Attempt.EXPIRED)))) {
+            expired.add(toAttempt(doc));
+        }
+        return expired;
+    }
+
+    // The attempts that exist among keys, with their answers
+    public List<Attempt> findAll(List<Key> keys) {
+        List<Attempt> attempts = new ArrayList<>(keys.size());
+        if (keys.isEmpty()) {
+            return attempts;
+        }
+        List<Bson> filters = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            filters.add(attemptFilter(key.studentId, key.examId));
+        }
+        for (Document doc : collection.find(Filters.or(filters))) {
+            attempts.add(toAttempt(doc));
+        }
+        return attempts;
+    }
+
+    // Attempts expired since the given time, without answers. Used at startup to find expiries
+    // whose result may not have been queued before the node went down.
+    public List<Attempt> findExpiredSince(long since) {
+        List<Attempt> attempts = new ArrayList<>();
+        for (Document doc : collection.find(Filters.and(Filters.eq("state", Attempt.EXPIRED), Filters.gte("endedAt", since)))
+                .projection(Projections.exclude("answers")).batchSize(1000)) {
+            attempts.add(toAttempt(doc));
+        }
+        return attempts;
+    }
+
+    // Running attempts without their answers, for rescheduling timers at startup
+    public List<Attempt> findInProgress() {
+        List<Attempt> attempts = new ArrayList<>();
+        for (Document doc : collection.find(Filters.eq("state", Attempt.IN_PROGRESS))
+                .projection(Projections.exclude("answers")).batchSize(1000)) {
+            attempts.add(toAttempt(doc));
+        }
+        return attempts;
+    }
+
+    // One unordered bulk write, each $set-ing only the changed "answers.<questionId>" fields.
+    // Attempts that are no longer IN_PROGRESS are left alone.
+    public void saveAnswers(List<AnswerDelta> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<WriteModel<Document>> writes = new ArrayList<>(batch.size());
+        for (AnswerDelta delta : batch) {
+            Document set = new Document("updatedAt", now);
+            for (Map.Entry<Integer, Integer> answer : delta.answers.entrySet()) {
+                set.append("answers." + answer.getKey(), answer.getValue());
+            }
+            writes.add(new UpdateOneModel<>(Filters.and(attemptFilter(delta.studentId, delta.examId),
+                    Filters.eq("state", Attempt.IN_PROGRESS)), new Document("$set", set)));
+        }
+        collection.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+    }
+
+    private static Bson attemptFilter(int studentId, int examId) {
+        return Filters.and(Filters.eq("studentId", studentId), Filters.eq("examId", examId));
+    }
+
+    private static Attempt toAttempt(Document doc) {
+        if (doc == null) {
+            return null;
+        }
+        Attempt attempt = new Attempt();
+        attempt.setStudentId(doc.getInteger("studentId", 0));
+        attempt.setExamId(doc.getInteger("examId", 0));
+        attempt.setState(doc.getString("state"));
+        attempt.setStartedAt(longValue(doc.get("startedAt")));
+        attempt.setDeadline(longValue(doc.get("deadline")));
+        attempt.setEndedAt(longValue(doc.get("endedAt")));
+        attempt.setResultId(doc.getInteger("resultId", 0));
+
+        Map<Integer, Integer> answers = new HashMap<>();
+        Document saved = doc.get("answers", Document.class);
+        if (saved != null) {
+            for (Map.Entry<String, Object> answer : saved.entrySet()) {
+                if (answer.getValue() instanceof Number) {
+                    answers.put(Integer.parseInt(answer.getKey()), ((Number) answer.getValue()).intValue());
+                }
+            }
+        }
+        attempt.setAnswers(answers);
+
+        List<?> questionIds = doc.get("questionIds", List.class);
+        if (questionIds != null) {
+            List<Integer> ids = new ArrayList<>(questionIds.size());
+            for (Object id : questionIds) {
+                if (id instanceof Number) {
+                    ids.add(((Number) id).intValue());
+                }
+            }
+            attempt.setQuestionIds(ids);
+        }
+        return attempt;
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
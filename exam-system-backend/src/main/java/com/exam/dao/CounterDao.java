@@ -0,0 +1,56 @@
+package com.exam.dao;
+
+import com.exam.config.DBConnection;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+
+public class CounterDao {
+    private static final String STATS_ID = "stats";
+
+    private final MongoCollection<Document> collection;
+
+    public CounterDao() {
+        MongoDatabase database = DBConnection.getDatabase();
+        this.collection = database.getCollection("counters");
+    }
+
+    // Raise the counter to at least floor. $max is idempotent, so every node can seed safely.
+    public void seed(String name, long floor) {
+        collection.updateOne(Filters.eq("_id", name), Updates.max("seq", floor), new UpdateOptions().upsert(true));
+    }
+
+    // Incrementally maintained entity counts live in a single "stats" document next to the sequences
+    public Document findStats() {
+        return collection.find(Filters.eq("_id", STATS_ID)).first();
+    }
+
+    // No upsert: until the document is rebuilt from the collections there is nothing to adjust
+    public void incrementStat(String field, long delta) {
+        collection.updateOne(Filters.eq("_id", STATS_ID), Updates.inc(field, delta));
+    }
+
+    public void replaceStats(Document counts) {
+        collection.updateOne(Filters.eq("_id", STATS_ID), new Document("$set", counts), new UpdateOptions().upsert(true));
+    }
+
+    // Atomically reserve blockSize ids and return the new high-water mark (last id of the block)
+    public long reserveBlock(String name, int blockSize) {
+        Document doc = collection.findOneAndUpdate(
+                Filters.eq("_id", name),
+                Updates.inc("seq", (long) blockSize),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        return ((Number) doc.get("seq")).longValue();
+    }
+
+    // Wind the counter back from limit to lastUsed, unless another reservation has moved it on since
+    public boolean release(String name, long limit, long lastUsed) {
+        return collection.updateOne(Filters.and(Filters.eq("_id", name), Filters.eq("seq", limit)),
+                Updates.set("seq", lastUsed)).getModifiedCount() > 0;
+    }
+}
@@ -1,11 +1,15 @@
 package com.exam.dao;
 
+import com.exam.cache.ContentEvents;
 import com.exam.config.DBConnection;
 import com.exam.model.Exam;
+import com.exam.service.ExamStatusScheduler;
+import com.exam.service.SequenceService;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
@@ -14,69 +18,51 @@ import java.util.List;
 
 public class ExamDao {
     private final MongoCollection<Document> collection;
+    // Same collection decoded straight into Exam by ExamCodec
+    private final MongoCollection<Exam> exams;
+    private final CounterDao counterDao = new CounterDao();
 
     public ExamDao() {
         MongoDatabase database = DBConnection.getDatabase();
         this.collection = database.getCollection("exams");
+        this.exams = database.getCollection("exams", Exam.class);
     }
 
     public List<Exam> findAll() {
-        List<Exam> exams = new ArrayList<>();
-        for (Document doc : collection.find()) {
-            exams.add(mapToExam(doc));
-        }
-        return exams;
+        return exams.find().into(new ArrayList<>());
     }
 
     public Exam findById(int examId) {
-        Document doc = collection.find(Filters.eq("examId", examId)).first();
-        return doc != null ? mapToExam(doc) : null;
+        return exams.find(Filters.eq("examId", examId)).first();
     }
 
     public void createExam(Exam exam) {
         if (exam.getExamId() == 0) {
             exam.setExamId(getNextExamId());
         }
+        // Scheduled exams get their status from the clock, not from the form
+        exam.setStatus(ExamStatusScheduler.computeStatus(exam, System.currentTimeMillis()));
 
-        Document doc = new Document("examId", exam.getExamId())
-                .append("title", exam.getTitle())
-                .append("subject", exam.getSubject())
-                .append("duration", exam.getDuration())
-                .append("totalQuestions", exam.getTotalQuestions())
-                .append("totalMarks", exam.getTotalMarks())
-                .append("status", exam.getStatus())
-                .append("scheduledAt", exam.getScheduledAt())
-                .append("createdBy", exam.getCreatedBy());
+        // ExamCodec assigns the ObjectId onto the exam before it is sent
+        exams.insertOne(exam);
+        counterDao.incrementStat("exams", 1);
+        ContentEvents.examSaved(exam);
+    }
 
-        if (exam.getQuestionIds() != null) {
-            doc.append("questionIds", exam.getQuestionIds());
-        }
-        
-        collection.insertOne(doc);
-        exam.setId(doc.getObjectId("_id"));
+    public void updateStatus(int examId, String status) {
+        collection.updateOne(Filters.eq("examId", examId), Updates.set("status", status));
+    }
+
+    public long count() {
+        return collection.countDocuments();
     }
 
     private int getNextExamId() {
-        Document lastExam = collection.find().sort(Sorts.descending("examId")).first();
-        return lastExam != null ? lastExam.getInteger("examId") + 1 : 1;
+        return SequenceService.getInstance().nextId("exams.examId", this::findMaxExamId);
     }
 
-    private Exam mapToExam(Document doc) {
-        Exam exam = new Exam();
-        exam.setId(doc.getObjectId("_id"));
-        exam.setExamId(doc.getInteger("examId"));
-        exam.setTitle(doc.getString("title"));
-        exam.setSubject(doc.getString("subject"));
-        exam.setDuration(doc.getInteger("duration"));
-        exam.setTotalQuestions(doc.getInteger("totalQuestions"));
-        exam.setTotalMarks(doc.getInteger("totalMarks"));
-        exam.setStatus(doc.getString("status"));
-        exam.setScheduledAt(doc.getString("scheduledAt"));
-        exam.setCreatedBy(doc.getString("createdBy"));
-        
-        List<Integer> qIds = doc.getList("questionIds", Integer.class);
-        exam.setQuestionIds(qIds);
-        
-        return exam;
+    private int findMaxExamId() {
+        Document lastExam = collection.find().sort(Sorts.descending("examId")).first();
+        return lastExam != null ? lastExam.getInteger("examId") : 0;
     }
 }
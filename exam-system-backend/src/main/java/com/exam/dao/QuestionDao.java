@@ -1,47 +1,85 @@
 package com.exam.dao;
 
+import com.exam.cache.ContentEvents;
 import com.exam.config.DBConnection;
 import com.exam.model.Question;
+import com.exam.service.SequenceService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class QuestionDao {
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private final MongoCollection<Document> collection;
+    // Same collection decoded straight into Question by QuestionCodec
+    private final MongoCollection<Question> questions;
+    private final CounterDao counterDao = new CounterDao();
 
     public QuestionDao() {
         MongoDatabase database = DBConnection.getDatabase();
         this.collection = database.getCollection("questions");
+        this.questions = database.getCollection("questions", Question.class);
     }
 
     public List<Question> findAll() {
-        List<Question> questions = new ArrayList<>();
-        for (Document doc : collection.find()) {
-            questions.add(mapToQuestion(doc));
+        return questions.find().into(new ArrayList<>());
+    }
+
+    // Lazy cursor over the whole bank for streaming responses; the caller must close the cursor
+    public MongoIterable<Question> iterateAll() {
+        return questions.find().batchSize(STREAM_BATCH_SIZE);
+    }
+
+    // Keyset page ordered by questionId. Filters are optional; fields limits what is read (null = everything).
+    public List<Question> findPage(int afterQuestionId, int limit, String subject, String difficulty, List<String> fields) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.gt("questionId", afterQuestionId));
+        if (subject != null) {
+            filters.add(Filters.eq("subject", subject));
         }
-        return questions;
+        if (difficulty != null) {
+            filters.add(Filters.eq("difficulty", difficulty));
+        }
+
+        FindIterable<Question> find = questions.find(Filters.and(filters))
+                .sort(Sorts.ascending("questionId"))
+                .limit(limit);
+        if (fields != null) {
+            List<String> include = new ArrayList<>(fields);
+            include.add("questionId"); // always needed for the next page token
+            find.projection(Projections.include(include));
+        }
+
+        return find.into(new ArrayList<>());
     }
 
     public Question findById(int questionId) {
-        Document doc = collection.find(Filters.eq("questionId", questionId)).first();
-        return doc != null ? mapToQuestion(doc) : null;
+        return questions.find(Filters.eq("questionId", questionId)).first();
     }
 
     public List<Question> findQuestionsByIds(List<Integer> questionIds) {
-        List<Question> questions = new ArrayList<>();
         if (questionIds == null || questionIds.isEmpty()) {
-            return questions;
+            return new ArrayList<>();
         }
-        for (Document doc : collection.find(Filters.in("questionId", questionIds))) {
-            questions.add(mapToQuestion(doc));
-        }
-        return questions;
+        return questions.find(Filters.in("questionId", questionIds)).into(new ArrayList<>());
     }
 
     public void createQuestion(Question question) {
@@ -49,16 +87,66 @@ public class QuestionDao {
             question.setQuestionId(getNextQuestionId());
         }
 
-        Document doc = new Document("questionId", question.getQuestionId())
-                .append("questionText", question.getQuestionText())
-                .append("options", question.getOptions())
-                .append("correctAnswer", question.getCorrectAnswer())
-                .append("subject", question.getSubject())
-                .append("difficulty", question.getDifficulty())
-                .append("marks", question.getMarks());
-        
-        collection.insertOne(doc);
-        question.setId(doc.getObjectId("_id"));
+        // QuestionCodec assigns the ObjectId onto the question before it is sent
+        questions.insertOne(question);
+        counterDao.incrementStat("questions", 1);
+        ContentEvents.questionCreated(question);
+    }
+
+    // Ordered insertMany with fresh ids. A failing row stops an ordered batch, so the rest of the batch
+    // is resent after it. Returns the batch index -> error message of every row that was not inserted.
+    public Map<Integer, String> createQuestions(List<Question> batch) {
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        if (batch.isEmpty()) {
+            return failures;
+        }
+        for (Question question : batch) {
+            question.setQuestionId(getNextQuestionId());
+        }
+
+        List<Question> inserted = new ArrayList<>(batch.size());
+        int from = 0;
+        while (from < batch.size()) {
+            List<Question> rest = batch.subList(from, batch.size());
+            try {
+                questions.insertMany(rest, new InsertManyOptions().ordered(true));
+                inserted.addAll(rest);
+                break;
+            } catch (MongoBulkWriteException e) {
+                if (e.getWriteErrors().isEmpty()) {
+                    // Only the write concern failed: the rows were applied on the primary but may not have
+                    // replicated yet. Inserting them again would duplicate them under new ids, so they count.
+                    System.err.println("Write concern not satisfied for " + rest.size() + " imported questions: "
+                            + (e.getWriteConcernError() != null ? e.getWriteConcernError().getMessage() : e.getMessage()));
+                    inserted.addAll(rest);
+                    break;
+                }
+                BulkWriteError error = e.getWriteErrors().get(0);
+                inserted.addAll(rest.subList(0, error.getIndex()));
+                failures.put(from + error.getIndex(), error.getMessage());
+                from += error.getIndex() + 1;
+            }
+        }
+
+        if (!inserted.isEmpty()) {
+            counterDao.incrementStat("questions", inserted.size());
+            ContentEvents.questionsCreated(inserted);
+        }
+        return failures;
+    }
+
+    // Whole bank in questionId order, for export; the caller must close the cursor
+    public MongoIterable<Question> iterateAllSorted() {
+        return questions.find().sort(Sorts.ascending("questionId")).batchSize(STREAM_BATCH_SIZE);
+    }
+
+    // Most options on any one question, so an export can size its columns before streaming
+    public int findMaxOptionCount() {
+        Document max = collection.aggregate(Arrays.asList(
+                new Document("$group", new Document("_id", null)
+                        .append("max", new Document("$max", new Document("$size",
+                                new Document("$ifNull", Arrays.asList("$options", Collections.emptyList())))))))).first();
+        return max != null ? max.getInteger("max", 0) : 0;
     }
 
     public void updateQuestion(Question question) {
@@ -69,28 +157,29 @@ public class QuestionDao {
                 .append("difficulty", question.getDifficulty())
                 .append("marks", question.getMarks());
         
-        collection.updateOne(Filters.eq("questionId", question.getQuestionId()), new Document("$set", doc));
+        if (collection.updateOne(Filters.eq("questionId", question.getQuestionId()), new Document("$set", doc))
+                .getMatchedCount() > 0) {
+            ContentEvents.questionChanged(question);
+        }
     }
 
     public void deleteQuestion(int questionId) {
-        collection.deleteOne(Filters.eq("questionId", questionId));
+        if (collection.deleteOne(Filters.eq("questionId", questionId)).getDeletedCount() > 0) {
+            counterDao.incrementStat("questions", -1);
+        }
+        ContentEvents.questionDeleted(questionId);
+    }
+
+    public long count() {
+        return collection.countDocuments();
     }
 
     private int getNextQuestionId() {
-        Document lastQuestion = collection.find().sort(Sorts.descending("questionId")).first();
-        return lastQuestion != null ? lastQuestion.getInteger("questionId") + 1 : 1;
+        return SequenceService.getInstance().nextId("questions.questionId", this::findMaxQuestionId);
     }
 
-    private Question mapToQuestion(Document doc) {
-        Question q = new Question();
-        q.setId(doc.getObjectId("_id"));
-        q.setQuestionId(doc.getInteger("questionId"));
-        q.setQuestionText(doc.getString("questionText"));
-        q.setOptions(doc.getList("options", String.class));
-        q.setCorrectAnswer(doc.getInteger("correctAnswer"));
-        q.setSubject(doc.getString("subject"));
-        q.setDifficulty(doc.getString("difficulty"));
-        q.setMarks(doc.getInteger("marks"));
-        return q;
+    private int findMaxQuestionId() {
+        Document lastQuestion = collection.find().sort(Sorts.descending("questionId")).first();
+        return lastQuestion != null ? lastQuestion.getInteger("questionId") : 0;
     }
 }
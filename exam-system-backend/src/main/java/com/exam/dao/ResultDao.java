@@ -1,92 +1,149 @@
 package com.exam.dao;
 
 import com.exam.config.DBConnection;
+import com.exam.grading.ExamStatsRegistry;
 import com.exam.model.ExamResult;
+import com.exam.service.SequenceService;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class ResultDao {
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private final MongoCollection<Document> collection;
+    // Same collection decoded straight into ExamResult by ExamResultCodec
+    private final MongoCollection<ExamResult> results;
 
     public ResultDao() {
         MongoDatabase database = DBConnection.getDatabase();
         this.collection = database.getCollection("results");
+        this.results = database.getCollection("results", ExamResult.class);
     }
 
-    public void saveResult(ExamResult result) {
+    public void assignResultId(ExamResult result) {
         if (result.getResultId() == 0) {
             result.setResultId(getNextResultId());
         }
+    }
 
-        Document doc = new Document("resultId", result.getResultId())
-                .append("examId", result.getExamId())
-                .append("examTitle", result.getExamTitle())
-                .append("studentId", result.getStudentId())
-                .append("studentName", result.getStudentName())
-                .append("studentEmail", result.getStudentEmail())
-                .append("score", result.getScore())
-                .append("totalMarks", result.getTotalMarks())
-                .append("percentage", result.getPercentage())
-                .append("submittedAt", result.getSubmittedAt());
-        
-        collection.insertOne(doc);
-        result.setId(doc.getObjectId("_id"));
+    public void saveResult(ExamResult result) {
+        assignResultId(result);
+        // ExamResultCodec assigns the ObjectId onto the result before it is sent
+        results.insertOne(result);
+        ExamStatsRegistry.getInstance().record(result);
     }
 
-    public List<ExamResult> findByStudentId(int studentId) {
-        List<ExamResult> results = new ArrayList<>();
-        for (Document doc : collection.find(Filters.eq("studentId", studentId))) {
-            results.add(mapToResult(doc));
+    // Unordered insertMany. Results whose resultId is already stored (e.g. replayed from the journal) are skipped.
+    // Returns the positions in batch that the server refused for good (validation and the like) with the
+    // reason; everything else is stored. A write concern error is thrown, since the whole batch may be retried.
+    public Map<Integer, String> saveResults(List<ExamResult> batch) {
+        Map<Integer, String> rejected = new HashMap<>();
+        if (batch.isEmpty()) {
+            return rejected;
+        }
+        for (ExamResult result : batch) {
+            assignResultId(result);
+        }
+
+        Set<Integer> duplicates = new HashSet<>();
+        try {
+            results.insertMany(batch, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            if (e.getWriteConcernError() != null) {
+                throw e;
+            }
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                    duplicates.add(error.getIndex());
+                } else {
+                    rejected.put(error.getIndex(), error.getCode() + ": " + error.getMessage());
+                }
+            }
+        }
+
+        // Skipped duplicates were counted when they were first stored
+        ExamStatsRegistry stats = ExamStatsRegistry.getInstance();
+        for (int i = 0; i < batch.size(); i++) {
+            if (!duplicates.contains(i) && !rejected.containsKey(i)) {
+                stats.record(batch.get(i));
+            }
+        }
+        return rejected;
+    }
+
+    public Set<Integer> findExistingResultIds(List<Integer> resultIds) {
+        Set<Integer> existing = new HashSet<>();
+        if (resultIds.isEmpty()) {
+            return existing;
         }
-        return results;
+        for (Document doc : collection.find(Filters.in("resultId", resultIds)).projection(Projections.include("resultId"))) {
+            existing.add(doc.getInteger("resultId"));
+        }
+        return existing;
+    }
+
+    public List<ExamResult> findByStudentId(int studentId) {
+        return results.find(Filters.eq("studentId", studentId)).into(new ArrayList<>());
     }
 
     public List<Integer> findExamIdsByStudentId(int studentId) {
         List<Integer> examIds = new ArrayList<>();
-        for (Document doc : collection.find(Filters.eq("studentId", studentId))) {
+        for (Document doc : collection.find(Filters.eq("studentId", studentId)).projection(Projections.include("examId"))) {
             examIds.add(doc.getInteger("examId"));
         }
         return examIds;
     }
     
     public List<ExamResult> findByExamId(int examId) {
-        List<ExamResult> results = new ArrayList<>();
-        for (Document doc : collection.find(Filters.eq("examId", examId))) {
-            results.add(mapToResult(doc));
-        }
-        return results;
+        return results.find(Filters.eq("examId", examId)).into(new ArrayList<>());
+    }
+
+    // Lazy cursor over an exam's results for streaming responses; the caller must close the cursor
+    public MongoIterable<ExamResult> iterateByExamId(int examId) {
+        return results.find(Filters.eq("examId", examId)).batchSize(STREAM_BATCH_SIZE);
+    }
+
+    // Only resultId and percentage, for rebuilding ExamStatistics
+    public MongoIterable<ExamResult> iteratePercentagesByExamId(int examId) {
+        return results.find(Filters.eq("examId", examId))
+                .projection(Projections.include("resultId", "percentage"))
+                .batchSize(STREAM_BATCH_SIZE);
+    }
+
+    // Only the packed sheets and scores, for item analysis; the caller must close the cursor
+    public MongoIterable<ExamResult> iterateAnswerSheetsByExamId(int examId) {
+        return results.find(Filters.eq("examId", examId))
+                .projection(Projections.include("score", "answerSheet", "answerKeyFingerprint"))
+                .batchSize(STREAM_BATCH_SIZE);
     }
 
     public ExamResult findById(int resultId) {
-        Document doc = collection.find(Filters.eq("resultId", resultId)).first();
-        return doc != null ? mapToResult(doc) : null;
+        return results.find(Filters.eq("resultId", resultId)).first();
     }
 
     private int getNextResultId() {
-        Document lastResult = collection.find().sort(Sorts.descending("resultId")).first();
-        return lastResult != null ? lastResult.getInteger("resultId") + 1 : 1;
+        return SequenceService.getInstance().nextId("results.resultId", this::findMaxResultId);
     }
 
-    private ExamResult mapToResult(Document doc) {
-        ExamResult result = new ExamResult();
-        result.setId(doc.getObjectId("_id"));
-        result.setResultId(doc.getInteger("resultId"));
-        result.setExamId(doc.getInteger("examId"));
-        result.setExamTitle(doc.getString("examTitle"));
-        result.setStudentId(doc.getInteger("studentId"));
-        result.setStudentName(doc.getString("studentName"));
-        result.setStudentEmail(doc.getString("studentEmail"));
-        result.setScore(doc.getInteger("score"));
-        result.setTotalMarks(doc.getInteger("totalMarks"));
-        result.setPercentage(doc.getInteger("percentage"));
-        result.setSubmittedAt(doc.getString("submittedAt"));
-        return result;
+    private int findMaxResultId() {
+        Document lastResult = collection.find().sort(Sorts.descending("resultId")).first();
+        return lastResult != null ? lastResult.getInteger("resultId") : 0;
     }
 }
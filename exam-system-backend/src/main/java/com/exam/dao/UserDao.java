@@ -2,57 +2,89 @@ package com.exam.dao;
 
 import com.exam.config.DBConnection;
 import com.exam.model.User;
+import com.exam.service.SequenceService;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndDeleteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class UserDao {
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private final MongoCollection<Document> collection;
+    // Same collection decoded straight into User by UserCodec
+    private final MongoCollection<User> users;
+    private final CounterDao counterDao = new CounterDao();
 
     public UserDao() {
         MongoDatabase database = DBConnection.getDatabase();
         this.collection = database.getCollection("users");
+        this.users = database.getCollection("users", User.class);
     }
 
     public User findByEmail(String email) {
-        Document doc = collection.find(Filters.eq("email", email)).first();
-        return doc != null ? mapToUser(doc) : null;
+        return users.find(Filters.eq("email", email)).first();
     }
 
     public User findById(int userId) {
-        Document doc = collection.find(Filters.eq("userId", userId)).first();
-        return doc != null ? mapToUser(doc) : null;
+        return users.find(Filters.eq("userId", userId)).first();
     }
 
     public void createUser(User user) {
-        // Auto-increment userId logic (simple version)
+        // Auto-increment userId from the shared block-allocated sequence
         if (user.getUserId() == 0) {
             user.setUserId(getNextUserId());
         }
         
-        Document doc = new Document("userId", user.getUserId())
-                .append("fullName", user.getFullName())
-                .append("email", user.getEmail())
-                .append("password", user.getPassword())
-                .append("role", user.getRole())
-                .append("createdAt", user.getCreatedAt());
-        
-        collection.insertOne(doc);
-        user.setId(doc.getObjectId("_id"));
+        // UserCodec assigns the ObjectId onto the user before it is sent
+        users.insertOne(user);
+        counterDao.incrementStat(statField(user.getRole()), 1);
     }
 
     public List<User> findAll() {
-        List<User> users = new ArrayList<>();
-        for (Document doc : collection.find()) {
-            users.add(mapToUser(doc));
+        return users.find().into(new ArrayList<>());
+    }
+
+    // Lazy cursor over all users without password hashes; the caller must close the cursor
+    public MongoIterable<User> iterateAllWithoutPasswords() {
+        return users.find().projection(Projections.exclude("password")).batchSize(STREAM_BATCH_SIZE);
+    }
+
+    // Keyset page ordered by userId. Password hashes are never read, whatever fields asks for.
+    public List<User> findPage(int afterUserId, int limit, String role, List<String> fields) {
+        Bson filter = Filters.gt("userId", afterUserId);
+        if (role != null) {
+            filter = Filters.and(filter, Filters.eq("role", role));
+        }
+
+        Bson projection;
+        if (fields != null) {
+            List<String> include = new ArrayList<>(fields);
+            include.remove("password");
+            include.add("userId"); // always needed for the next page token
+            projection = Projections.include(include);
+        } else {
+            projection = Projections.exclude("password");
         }
-        return users;
+
+        return users.find(filter).projection(projection).sort(Sorts.ascending("userId")).limit(limit).into(new ArrayList<>());
     }
 
     public void updateUser(User user) {
@@ -65,27 +97,58 @@ public class UserDao {
             doc.append("password", user.getPassword());
         }
         
-        collection.updateOne(Filters.eq("userId", user.getUserId()), new Document("$set", doc));
+        Document before = collection.findOneAndUpdate(Filters.eq("userId", user.getUserId()), new Document("$set", doc),
+                new FindOneAndUpdateOptions().projection(Projections.include("role")));
+        if (before != null && !Objects.equals(before.getString("role"), user.getRole())) {
+            counterDao.incrementStat(statField(before.getString("role")), -1);
+            counterDao.incrementStat(statField(user.getRole()), 1);
+        }
+    }
+
+    public void updatePassword(int userId, String hashedPassword) {
+        collection.updateOne(Filters.eq("userId", userId), Updates.set("password", hashedPassword));
     }
 
     public void deleteUser(int userId) {
-        collection.deleteOne(Filters.eq("userId", userId));
+        Document deleted = collection.findOneAndDelete(Filters.eq("userId", userId),
+                new FindOneAndDeleteOptions().projection(Projections.include("role")));
+        if (deleted != null) {
+            counterDao.incrementStat(statField(deleted.getString("role")), -1);
+        }
+    }
+
+    public long count() {
+        return collection.countDocuments();
+    }
+
+    // Number of users per role, grouped server-side
+    public Map<String, Long> countByRole() {
+        Map<String, Long> counts = new HashMap<>();
+        for (Document doc : collection.aggregate(Collections.singletonList(
+                Aggregates.group("$role", Accumulators.sum("count", 1))))) {
+            counts.put(doc.getString("_id"), ((Number) doc.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    // Field of the stats counter document that tracks users with this role
+    public static String statField(String role) {
+        if ("STUDENT".equals(role)) {
+            return "students";
+        } else if ("TEACHER".equals(role)) {
+            return "teachers";
+        } else if ("ADMIN".equals(role)) {
+            return "admins";
+        }
+        return "otherUsers";
     }
 
     private int getNextUserId() {
-        Document lastUser = collection.find().sort(Sorts.descending("userId")).first();
-        return lastUser != null ? lastUser.getInteger("userId") + 1 : 1;
+        return SequenceService.getInstance().nextId("users.userId", this::findMaxUserId);
     }
 
-    private User mapToUser(Document doc) {
-        User user = new User();
-        user.setId(doc.getObjectId("_id"));
-        user.setUserId(doc.getInteger("userId"));
-        user.setFullName(doc.getString("fullName"));
-        user.setEmail(doc.getString("email"));
-        user.setPassword(doc.getString("password"));
-        user.setRole(doc.getString("role"));
-        user.setCreatedAt(doc.getString("createdAt"));
-        return user;
+    private int findMaxUserId() {
+        Document lastUser = collection.find().sort(Sorts.descending("userId")).first();
+        return lastUser != null ? lastUser.getInteger("userId") : 0;
     }
 }
@@ -1,50 +1,96 @@
 package com.exam.filter;
 
+import com.exam.service.TokenService;
 import jakarta.servlet.*;
 import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
-@WebFilter("/api/*")
+@WebFilter(urlPatterns = "/api/*", asyncSupported = true)
 public class AuthFilter implements Filter {
 
+    // Set on every authenticated request so servlets never need to look the user up
+    public static final String USER_ID_ATTRIBUTE = "auth.userId";
+    public static final String ROLE_ATTRIBUTE = "auth.role";
+
+    private final TokenService tokenService = TokenService.getInstance();
+
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
         
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
-        String path = httpRequest.getPathInfo();
-        String requestURI = httpRequest.getRequestURI();
+        // The container's decoded, normalised view of the path, i.e. what the request is actually mapped
+        // by. The raw request URI can still hold "//" or %-escapes that would slip past prefix checks.
+        String path = pathOf(httpRequest);
         // Allow OPTIONS requests for CORS preflight
         if ("OPTIONS".equalsIgnoreCase(httpRequest.getMethod())) {
             chain.doFilter(request, response);
             return;
         }
 
-        // Allow public endpoints (Login/Register)
-        // Note: requestURI includes context path (e.g. /exam-system/api/auth/...)
-        if (requestURI.contains("/api/auth/")) {
+        // Check for Authorization header and verify the token signature and expiry
+        TokenService.Claims claims = claimsOf(httpRequest);
+
+        // Allow public endpoints (Login/Register). A valid token still identifies the caller,
+        // which is what lets an admin register TEACHER and ADMIN accounts.
+        if (isUnder(path, "/api/auth")) {
+            if (claims != null) {
+                httpRequest.setAttribute(USER_ID_ATTRIBUTE, claims.getUserId());
+                httpRequest.setAttribute(ROLE_ATTRIBUTE, claims.getRole());
+            }
             chain.doFilter(request, response);
             return;
         }
 
-        // Check for Authorization header
-        String authHeader = httpRequest.getHeader("Authorization");
+        if (claims == null) {
+            // If we get here, the user is not authorized
+            httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            httpResponse.getWriter().write("{\"error\": \"Unauthorized access\"}");
+            return;
+        }
+
+        if (!isAllowed(path, claims.getRole())) {
+            httpResponse.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            httpResponse.getWriter().write("{\"error\": \"Forbidden\"}");
+            return;
+        }
+
+        httpRequest.setAttribute(USER_ID_ATTRIBUTE, claims.getUserId());
+        httpRequest.setAttribute(ROLE_ATTRIBUTE, claims.getRole());
+        chain.doFilter(request, response);
+    }
+
+    // Deny by default: an API path outside the known areas is not reachable with any role
+    private static boolean isAllowed(String path, String role) {
+        if (isUnder(path, "/api/admin")) {
+            return "ADMIN".equals(role);
+        } else if (isUnder(path, "/api/teacher")) {
+            return "TEACHER".equals(role) || "ADMIN".equals(role);
+        } else if (isUnder(path, "/api/student")) {
+            return "STUDENT".equals(role);
+        }
+        return false;
+    }
+
+    private TokenService.Claims claimsOf(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            
-            // Simple validation: check if it's our mock token format
-            // In production, you would verify the JWT signature here
-            if (token.startsWith("mock-jwt-token-")) {
-                chain.doFilter(request, response);
-                return;
-            }
+            return tokenService.verify(authHeader.substring(7));
         }
+        return null;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        return (servletPath != null ? servletPath : "") + (pathInfo != null ? pathInfo : "");
+    }
 
-        // If we get here, the user is not authorized
-        httpResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        httpResponse.getWriter().write("{\"error\": \"Unauthorized access\"}");
+    // The area itself or anything below it, but not "/api/administrator"
+    private static boolean isUnder(String path, String area) {
+        return path.equals(area) || path.startsWith(area + "/");
     }
 }
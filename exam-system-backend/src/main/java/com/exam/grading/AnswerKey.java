@@ -0,0 +1,159 @@
+package com.exam.grading;
+
+import com.exam.model.Question;
+import com.exam.util.Permutations;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Compiled answer key for one exam: parallel int arrays sorted by questionId
+public final class AnswerKey {
+    // A packed sheet stores option + 1 in an unsigned byte
+    private static final int MAX_OPTIONS = 255;
+
+    private final int examId;
+    private final int[] questionIds;
+    private final int[] correctAnswers;
+    private final int[] marks;
+    private final int[] optionCounts;
+    private final int totalMarks;
+    private final int fingerprint;
+    private final boolean wholeBank;
+
+    private AnswerKey(int examId, int[] questionIds, int[] correctAnswers, int[] marks, int[] optionCounts, boolean wholeBank) {
+        this.examId = examId;
+        this.wholeBank = wholeBank;
+        this.questionIds = questionIds;
+        this.correctAnswers = correctAnswers;
+        this.marks = marks;
+        this.optionCounts = optionCounts;
+        this.fingerprint = Arrays.hashCode(questionIds);
+        int total = 0;
+        for (int m : marks) {
+            total += m;
+        }
+        this.totalMarks = total;
+    }
+
+    // wholeBank marks keys built from the entire question bank, which any new question changes
+    public static AnswerKey compile(int examId, List<Question> questions, boolean wholeBank) {
+        Question[] sorted = questions.toArray(new Question[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(Question::getQuestionId));
+
+        int[] ids = new int[sorted.length];
+        int[] correct = new int[sorted.length];
+        int[] marks = new int[sorted.length];
+        int[] optionCounts = new int[sorted.length];
+        int n = 0;
+        for (Question q : sorted) {
+            // A question listed twice in the exam only counts once
+            if (n > 0 && ids[n - 1] == q.getQuestionId()) {
+                continue;
+            }
+            ids[n] = q.getQuestionId();
+            correct[n] = q.getCorrectAnswer();
+            marks[n] = q.getMarks();
+            optionCounts[n] = q.getOptions() != null ? q.getOptions().size() : 0;
+            n++;
+        }
+        return new AnswerKey(examId, Arrays.copyOf(ids, n), Arrays.copyOf(correct, n), Arrays.copyOf(marks, n),
+                Arrays.copyOf(optionCounts, n), wholeBank);
+    }
+
+    // Pack an answer sheet (questionId -> selected option) into one byte per key entry, in key order:
+    // selected option + 1, or 0 when unanswered. Answers for questions outside the key are ignored.
+    public byte[] pack(Map<Integer, Integer> answers) {
+        byte[] sheet = new byte[questionIds.length];
+        if (answers == null) {
+            return sheet;
+        }
+        for (Map.Entry<Integer, Integer> answer : answers.entrySet()) {
+            Integer questionId = answer.getKey();
+            Integer selected = answer.getValue();
+            if (questionId == null || selected == null) {
+                continue;
+            }
+            int i = indexOf(questionId.intValue());
+            if (i >= 0 && selected >= 0 && selected < MAX_OPTIONS) {
+                sheet[i] = (byte) (selected + 1);
+            }
+        }
+        return sheet;
+    }
+
+    // Same, for option indexes that refer to the student's shuffled display order (see PublishedPaper);
+    // the sheet stores the canonical option
+    public byte[] packShuffled(Map<Integer, Integer> answers, long seed) {
+        byte[] sheet = new byte[questionIds.length];
+        if (answers == null) {
+            return sheet;
+        }
+        int[] scratch = new int[maxOptionCount()];
+        for (Map.Entry<Integer, Integer> answer : answers.entrySet()) {
+            Integer questionId = answer.getKey();
+            Integer selected = answer.getValue();
+            if (questionId == null || selected == null) {
+                continue;
+            }
+            int i = indexOf(questionId.intValue());
+            int shown = selected.intValue();
+            if (i < 0 || shown < 0 || shown >= optionCounts[i] || optionCounts[i] > MAX_OPTIONS) {
+                continue;
+            }
+            sheet[i] = (byte) (Permutations.apply(seed, questionId, optionCounts[i], shown, scratch) + 1);
+        }
+        return sheet;
+    }
+
+    public int score(byte[] sheet) {
+        int score = 0;
+        for (int i = 0; i < sheet.length; i++) {
+            if (selectedOption(sheet, i) == correctAnswers[i]) {
+                score += marks[i];
+            }
+        }
+        return score;
+    }
+
+    // -1 when unanswered
+    public static int selectedOption(byte[] sheet, int index) {
+        return (sheet[index] & 0xFF) - 1;
+    }
+
+    private int maxOptionCount() {
+        int max = 0;
+        for (int count : optionCounts) {
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+
+    public int indexOf(int questionId) {
+        return Arrays.binarySearch(questionIds, questionId);
+    }
+
+    public boolean contains(int questionId) {
+        return indexOf(questionId) >= 0;
+    }
+
+    public int getExamId() { return examId; }
+
+    public int size() { return questionIds.length; }
+
+    public int getQuestionId(int index) { return questionIds[index]; }
+
+    public int getCorrectAnswer(int index) { return correctAnswers[index]; }
+
+    public int getMarks(int index) { return marks[index]; }
+
+    public int getOptionCount(int index) { return optionCounts[index]; }
+
+    public int getTotalMarks() { return totalMarks; }
+
+    // Identifies the question set a packed sheet is aligned to
+    public int getFingerprint() { return fingerprint; }
+
+    public boolean isWholeBank() { return wholeBank; }
+}
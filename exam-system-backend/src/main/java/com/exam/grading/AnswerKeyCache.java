@@ -0,0 +1,38 @@
+package com.exam.grading;
+
+import com.exam.cache.LoadingCache;
+import com.exam.model.Exam;
+
+import java.util.function.Function;
+
+// LRU cache of compiled answer keys by examId. Concurrent misses for the same exam share one load.
+public class AnswerKeyCache extends LoadingCache<AnswerKey> {
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final AnswerKeyCache INSTANCE = new AnswerKeyCache(DEFAULT_MAX_ENTRIES);
+
+    public static AnswerKeyCache getInstance() {
+        return INSTANCE;
+    }
+
+    public AnswerKeyCache(int maxEntries) {
+        super(maxEntries);
+    }
+
+    public AnswerKey get(Exam exam, Function<Exam, AnswerKey> loader) {
+        return get(exam.getExamId(), examId -> loader.apply(exam));
+    }
+
+    public void invalidateExam(int examId) {
+        invalidate(examId);
+    }
+
+    // Drop every key that grades this question
+    public void invalidateQuestion(int questionId) {
+        invalidateIf(key -> key.contains(questionId));
+    }
+
+    // A new question only changes keys that were compiled from the whole bank
+    public void invalidateWholeBank() {
+        invalidateIf(AnswerKey::isWholeBank);
+    }
+}
@@ -0,0 +1,77 @@
+package com.exam.grading;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+// Running summary of one exam's percentages: Welford mean/variance, min/max, pass count and
+// a 10-point histogram. Constant size however many results it has seen.
+public final class ExamStatistics {
+    private static final int BUCKETS = 10;
+
+    private final int passPercentage;
+    private long count;
+    private double mean;
+    private double m2;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+    private long passed;
+    private final long[] histogram = new long[BUCKETS];
+
+    public ExamStatistics(int passPercentage) {
+        this.passPercentage = passPercentage;
+    }
+
+    public void add(int percentage) {
+        count++;
+        double delta = percentage - mean;
+        mean += delta / count;
+        m2 += delta * (percentage - mean);
+        min = Math.min(min, percentage);
+        max = Math.max(max, percentage);
+        if (percentage >= passPercentage) {
+            passed++;
+        }
+        // 0-9, 10-19, ..., 90-100
+        histogram[Math.max(0, Math.min(percentage / 10, BUCKETS - 1))]++;
+    }
+
+    public long getCount() { return count; }
+
+    public double getMean() { return mean; }
+
+    // Sample variance; 0 until there are two results
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0;
+    }
+
+    public JsonObject toJson(int examId) {
+        JsonObject json = new JsonObject();
+        json.addProperty("examId", examId);
+        json.addProperty("count", count);
+        json.addProperty("mean", round(mean));
+        json.addProperty("variance", round(getVariance()));
+        json.addProperty("stdDev", round(Math.sqrt(getVariance())));
+        if (count > 0) {
+            json.addProperty("min", min);
+            json.addProperty("max", max);
+        }
+        json.addProperty("passPercentage", passPercentage);
+        json.addProperty("passed", passed);
+        json.addProperty("passRate", count > 0 ? round(passed * 100.0 / count) : 0);
+
+        JsonArray buckets = new JsonArray();
+        for (int i = 0; i < BUCKETS; i++) {
+            JsonObject bucket = new JsonObject();
+            bucket.addProperty("from", i * 10);
+            bucket.addProperty("to", i == BUCKETS - 1 ? 100 : i * 10 + 9);
+            bucket.addProperty("count", histogram[i]);
+            buckets.add(bucket);
+        }
+        json.add("histogram", buckets);
+        return json;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,140 @@
+package com.exam.grading;
+
+import com.exam.config.AppConfig;
+import com.exam.dao.ResultDao;
+import com.exam.model.ExamResult;
+import com.google.gson.JsonObject;
+import com.mongodb.client.MongoCursor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Per-exam ExamStatistics kept current by ResultDao as results are saved. An exam is loaded by
+// streaming its results the first time it is asked for; until then saves for it are ignored.
+public class ExamStatsRegistry {
+    private static ExamStatsRegistry instance;
+
+    private final int passPercentage;
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    // A lock and condition rather than the entry's monitor, so request threads waiting for the
+    // first load (virtual threads included) do not pin their carrier while the stream runs.
+    private static final class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition loaded = lock.newCondition();
+        ExamStatistics stats;
+        boolean loading = true;
+        // Saved while the stream was running; applied afterwards unless the stream already saw them
+        final List<ExamResult> pending = new ArrayList<>();
+        RuntimeException failure;
+    }
+
+    public static synchronized ExamStatsRegistry getInstance() {
+        if (instance == null) {
+            instance = new ExamStatsRegistry();
+        }
+        return instance;
+    }
+
+    public ExamStatsRegistry() {
+        this.passPercentage = AppConfig.getInt("exam.passPercentage", 40);
+    }
+
+    // Called by ResultDao after results are stored
+    public void record(ExamResult result) {
+        Entry entry = entries.get(result.getExamId());
+        if (entry == null) {
+            return;
+        }
+        entry.lock.lock();
+        try {
+            if (entry.loading) {
+                entry.pending.add(result);
+            } else {
+                entry.stats.add(result.getPercentage());
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    public JsonObject get(int examId, ResultDao resultDao) {
+        Entry entry = entries.get(examId);
+        if (entry == null) {
+            entry = new Entry();
+            Entry raced = entries.putIfAbsent(examId, entry);
+            if (raced == null) {
+                load(examId, entry, resultDao);
+            } else {
+                entry = raced;
+            }
+        }
+        entry.lock.lock();
+        try {
+            while (entry.loading) {
+                try {
+                    entry.loaded.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while loading exam statistics", e);
+                }
+            }
+            if (entry.failure != null) {
+                throw entry.failure;
+            }
+            return entry.stats.toJson(examId);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    // Throws away the accumulated numbers and recounts from the results collection
+    public JsonObject rebuild(int examId, ResultDao resultDao) {
+        entries.remove(examId);
+        return get(examId, resultDao);
+    }
+
+    private void load(int examId, Entry entry, ResultDao resultDao) {
+        ExamStatistics stats = new ExamStatistics(passPercentage);
+        Set<Integer> seen = new HashSet<>();
+        try (MongoCursor<ExamResult> cursor = resultDao.iteratePercentagesByExamId(examId).iterator()) {
+            while (cursor.hasNext()) {
+                ExamResult result = cursor.next();
+                seen.add(result.getResultId());
+                stats.add(result.getPercentage());
+            }
+        } catch (RuntimeException e) {
+            entry.lock.lock();
+            try {
+                entries.remove(examId, entry);
+                entry.failure = e;
+                entry.loading = false;
+                entry.loaded.signalAll();
+            } finally {
+                entry.lock.unlock();
+            }
+            return;
+        }
+
+        entry.lock.lock();
+        try {
+            for (ExamResult result : entry.pending) {
+                if (!seen.contains(result.getResultId())) {
+                    stats.add(result.getPercentage());
+                }
+            }
+            entry.pending.clear();
+            entry.stats = stats;
+            entry.loading = false;
+            entry.loaded.signalAll();
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.exam.grading;
+
+import com.exam.dao.QuestionDao;
+import com.exam.model.Exam;
+import com.exam.model.ExamResult;
+import com.exam.util.Permutations;
+
+import java.util.List;
+import java.util.Map;
+
+public class GradingEngine {
+    private final QuestionDao questionDao;
+
+    public GradingEngine() {
+        this(new QuestionDao());
+    }
+
+    public GradingEngine(QuestionDao questionDao) {
+        this.questionDao = questionDao;
+    }
+
+    public AnswerKey compileKey(Exam exam) {
+        if (exam.getQuestionIds() != null && !exam.getQuestionIds().isEmpty()) {
+            return AnswerKey.compile(exam.getExamId(), questionDao.findQuestionsByIds(exam.getQuestionIds()), false);
+        }
+        // Same fallback the student paper uses: an exam without linked questions covers the whole bank
+        return AnswerKey.compile(exam.getExamId(), questionDao.findAll(), true);
+    }
+
+    // Fill the packed answer sheet, score, totalMarks and percentage on the result.
+    // result.getStudentId() must be set for shuffled exams.
+    public void grade(Exam exam, Map<Integer, Integer> answers, ExamResult result) {
+        grade(exam, answers, result, null);
+    }
+
+    // questionIds is the student's own draw for per-student blueprint exams; that key is compiled
+    // for this one sheet rather than cached, and its fingerprint will not match the exam's key
+    public void grade(Exam exam, Map<Integer, Integer> answers, ExamResult result, List<Integer> questionIds) {
+        AnswerKey key = questionIds != null
+                ? AnswerKey.compile(exam.getExamId(), questionDao.findQuestionsByIds(questionIds), false)
+                : AnswerKeyCache.getInstance().get(exam, this::compileKey);
+        byte[] sheet = exam.isShuffleOptions()
+                ? key.packShuffled(answers, Permutations.seed(exam.getExamId(), result.getStudentId()))
+                : key.pack(answers);
+        int score = key.score(sheet);
+        int totalMarks = key.getTotalMarks();
+
+        result.setAnswerSheet(sheet);
+        result.setAnswerKeyFingerprint(key.getFingerprint());
+        result.setScore(score);
+        result.setTotalMarks(totalMarks);
+        result.setPercentage(totalMarks > 0 ? (score * 100) / totalMarks : 0);
+    }
+}
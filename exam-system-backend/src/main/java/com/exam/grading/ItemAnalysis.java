@@ -0,0 +1,109 @@
+package com.exam.grading;
+
+import com.exam.model.ExamResult;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Iterator;
+
+// Classical item analysis over packed answer sheets in one pass: per question the p-value (share
+// answering correctly), the point-biserial correlation between getting it right and the total score,
+// and how often each option was picked. Only flat primitive accumulators, so memory does not grow
+// with the number of results.
+public final class ItemAnalysis {
+    private final AnswerKey key;
+    private final long[] correct;
+    private final double[] correctScoreSum;
+    private final long[][] optionCounts; // [item][0] = unanswered, [item][o + 1] = option o
+
+    private long results;
+    private long skipped;
+    private double scoreSum;
+    private double scoreSquares;
+
+    public ItemAnalysis(AnswerKey key) {
+        this.key = key;
+        int n = key.size();
+        this.correct = new long[n];
+        this.correctScoreSum = new double[n];
+        this.optionCounts = new long[n][];
+        for (int i = 0; i < n; i++) {
+            optionCounts[i] = new long[key.getOptionCount(i) + 1];
+        }
+    }
+
+    public static JsonObject analyze(int examId, AnswerKey key, Iterator<ExamResult> results) {
+        ItemAnalysis analysis = new ItemAnalysis(key);
+        while (results.hasNext()) {
+            analysis.add(results.next());
+        }
+        return analysis.toJson(examId);
+    }
+
+    public void add(ExamResult result) {
+        byte[] sheet = result.getAnswerSheet();
+        // Older results have no sheet; sheets for a different question set would be misaligned
+        if (sheet == null || sheet.length != key.size() || result.getAnswerKeyFingerprint() != key.getFingerprint()) {
+            skipped++;
+            return;
+        }
+        int score = result.getScore();
+        results++;
+        scoreSum += score;
+        scoreSquares += (double) score * score;
+        for (int i = 0; i < sheet.length; i++) {
+            int selected = AnswerKey.selectedOption(sheet, i);
+            if (selected + 1 < optionCounts[i].length) {
+                optionCounts[i][selected + 1]++;
+            }
+            if (selected == key.getCorrectAnswer(i)) {
+                correct[i]++;
+                correctScoreSum[i] += score;
+            }
+        }
+    }
+
+    public JsonObject toJson(int examId) {
+        double mean = results > 0 ? scoreSum / results : 0;
+        double stdDev = results > 0 ? Math.sqrt(Math.max(0, scoreSquares / results - mean * mean)) : 0;
+
+        JsonArray items = new JsonArray();
+        for (int i = 0; i < key.size(); i++) {
+            JsonObject item = new JsonObject();
+            item.addProperty("questionId", key.getQuestionId(i));
+            item.addProperty("correctAnswer", key.getCorrectAnswer(i));
+            double p = results > 0 ? (double) correct[i] / results : 0;
+            item.addProperty("pValue", round(p));
+            item.addProperty("discrimination", round(pointBiserial(i, p, mean, stdDev)));
+            item.addProperty("unanswered", optionCounts[i][0]);
+            JsonArray options = new JsonArray();
+            for (int o = 1; o < optionCounts[i].length; o++) {
+                options.add(optionCounts[i][o]);
+            }
+            item.add("optionCounts", options);
+            items.add(item);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("examId", examId);
+        json.addProperty("results", results);
+        json.addProperty("skipped", skipped);
+        json.addProperty("meanScore", round(mean));
+        json.addProperty("scoreStdDev", round(stdDev));
+        json.add("items", items);
+        return json;
+    }
+
+    // r = (M1 - M) / s * sqrt(p / q), with M1 the mean score of those who got the item right
+    private double pointBiserial(int i, double p, double mean, double stdDev) {
+        if (correct[i] == 0 || correct[i] == results || stdDev == 0) {
+            return 0;
+        }
+        double correctMean = correctScoreSum[i] / correct[i];
+        return (correctMean - mean) / stdDev * Math.sqrt(p / (1 - p));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,51 @@
+package com.exam.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Attempt {
+    public static final String DRAWN = "DRAWN"; // Paper fetched, questions drawn, not started yet
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String SUBMITTED = "SUBMITTED";
+    public static final String EXPIRED = "EXPIRED";
+
+    private int studentId;
+    private int examId;
+    private String state; // DRAWN, IN_PROGRESS, SUBMITTED, EXPIRED
+    private long startedAt;
+    private long deadline; // epoch millis
+    private long endedAt;
+    private int resultId;
+    private Map<Integer, Integer> answers = new HashMap<>(); // questionId -> selected option
+    private List<Integer> questionIds; // This student's draw for blueprint exams; null means the exam's own set
+
+    public Attempt() {}
+
+    public int getStudentId() { return studentId; }
+    public void setStudentId(int studentId) { this.studentId = studentId; }
+
+    public int getExamId() { return examId; }
+    public void setExamId(int examId) { this.examId = examId; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public long getStartedAt() { return startedAt; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+
+    public long getDeadline() { return deadline; }
+    public void setDeadline(long deadline) { this.deadline = deadline; }
+
+    public long getEndedAt() { return endedAt; }
+    public void setEndedAt(long endedAt) { this.endedAt = endedAt; }
+
+    public int getResultId() { return resultId; }
+    public void setResultId(int resultId) { this.resultId = resultId; }
+
+    public Map<Integer, Integer> getAnswers() { return answers; }
+    public void setAnswers(Map<Integer, Integer> answers) { this.answers = answers; }
+
+    public List<Integer> getQuestionIds() { return questionIds; }
+    public void setQuestionIds(List<Integer> questionIds) { this.questionIds = questionIds; }
+}
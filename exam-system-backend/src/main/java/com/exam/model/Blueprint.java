@@ -0,0 +1,46 @@
+package com.exam.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// How to assemble an exam from the bank instead of hand-picking questionIds,
+// e.g. 10 EASY + 5 HARD from Chemistry totalling 50 marks
+public class Blueprint {
+    private List<Rule> rules = new ArrayList<>();
+    private int totalMarks; // 0 = whatever the drawn questions add up to
+    private boolean perStudent; // draw a separate set for every student
+
+    public static class Rule {
+        private String subject;
+        private String difficulty; // null = any difficulty
+        private int count;
+
+        public Rule() {}
+
+        public Rule(String subject, String difficulty, int count) {
+            this.subject = subject;
+            this.difficulty = difficulty;
+            this.count = count;
+        }
+
+        public String getSubject() { return subject; }
+        public void setSubject(String subject) { this.subject = subject; }
+
+        public String getDifficulty() { return difficulty; }
+        public void setDifficulty(String difficulty) { this.difficulty = difficulty; }
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+    }
+
+    public Blueprint() {}
+
+    public List<Rule> getRules() { return rules; }
+    public void setRules(List<Rule> rules) { this.rules = rules; }
+
+    public int getTotalMarks() { return totalMarks; }
+    public void setTotalMarks(int totalMarks) { this.totalMarks = totalMarks; }
+
+    public boolean isPerStudent() { return perStudent; }
+    public void setPerStudent(boolean perStudent) { this.perStudent = perStudent; }
+}
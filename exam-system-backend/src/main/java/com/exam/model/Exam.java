@@ -14,6 +14,9 @@ public class Exam {
     private String scheduledAt;
     private String createdBy; // Teacher's name or ID
     private java.util.List<Integer> questionIds; // List of Question IDs included in this exam
+    private boolean shuffleQuestions; // Serve questions in a per-student order
+    private boolean shuffleOptions;   // Serve options in a per-student order; answers are mapped back when grading
+    private Blueprint blueprint; // Optional; resolved into questionIds when the exam is created
 
     public Exam() {}
 
@@ -62,4 +65,16 @@ public class Exam {
 
     public java.util.List<Integer> getQuestionIds() { return questionIds; }
     public void setQuestionIds(java.util.List<Integer> questionIds) { this.questionIds = questionIds; }
+
+    public boolean isShuffleQuestions() { return shuffleQuestions; }
+    public void setShuffleQuestions(boolean shuffleQuestions) { this.shuffleQuestions = shuffleQuestions; }
+
+    public boolean isShuffleOptions() { return shuffleOptions; }
+    public void setShuffleOptions(boolean shuffleOptions) { this.shuffleOptions = shuffleOptions; }
+
+    public Blueprint getBlueprint() { return blueprint; }
+    public void setBlueprint(Blueprint blueprint) { this.blueprint = blueprint; }
+
+    // Every student gets their own draw from the blueprint
+    public boolean hasPerStudentQuestions() { return blueprint != null && blueprint.isPerStudent(); }
 }
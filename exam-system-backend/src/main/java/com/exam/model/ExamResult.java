@@ -1,7 +1,6 @@
 package com.exam.model;
 
 import org.bson.types.ObjectId;
-import java.util.List;
 
 public class ExamResult {
     private transient ObjectId id;
@@ -16,9 +15,11 @@ public class ExamResult {
     private int percentage;
     private String submittedAt;
     
-    // We can store the answers as a list of simple objects or maps
-    // For simplicity, let's just store the score for now, but you could add:
-    // private List<StudentAnswer> answers;
+    // One byte per question in the sorted order of the exam's answer key: selected option + 1, 0 = unanswered.
+    // Only meaningful against the key whose fingerprint matches. Stored by ExamResultCodec and the result
+    // journal; transient so Gson leaves it out of the JSON sent to clients.
+    private transient byte[] answerSheet;
+    private int answerKeyFingerprint;
 
     public ExamResult() {}
 
@@ -65,6 +66,12 @@ public class ExamResult {
     public int getPercentage() { return percentage; }
     public void setPercentage(int percentage) { this.percentage = percentage; }
 
+    public byte[] getAnswerSheet() { return answerSheet; }
+    public void setAnswerSheet(byte[] answerSheet) { this.answerSheet = answerSheet; }
+
+    public int getAnswerKeyFingerprint() { return answerKeyFingerprint; }
+    public void setAnswerKeyFingerprint(int answerKeyFingerprint) { this.answerKeyFingerprint = answerKeyFingerprint; }
+
     public String getSubmittedAt() { return submittedAt; }
     public void setSubmittedAt(String submittedAt) { this.submittedAt = submittedAt; }
 }
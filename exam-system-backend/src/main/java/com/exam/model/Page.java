@@ -0,0 +1,23 @@
+package com.exam.model;
+
+import java.util.List;
+
+// One page of a keyset-paginated listing. nextPageToken is null on the last page.
+public class Page<T> {
+    private List<T> items;
+    private String nextPageToken;
+
+    public Page() {}
+
+    public Page(List<T> items, String nextPageToken) {
+        this.items = items;
+        this.nextPageToken = nextPageToken;
+    }
+
+    // Getters and Setters
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextPageToken() { return nextPageToken; }
+    public void setNextPageToken(String nextPageToken) { this.nextPageToken = nextPageToken; }
+}
@@ -0,0 +1,515 @@
+package com.exam.search;
+
+import com.exam.config.AppConfig;
+import com.exam.model.Question;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Near-duplicate detection over the question bank with MinHash + LSH. Each question's normalised text and
+// options are cut into character shingles; bands * rows min-hashes of those form its signature, and every
+// band of rows is one LSH bucket key. Questions sharing any bucket are candidates, confirmed by comparing
+// signatures. Only the low byte of each min-hash is kept per question (b-bit MinHash), so 500k questions
+// cost about 32 MB of signatures plus the bucket tables. Kept current by ContentEvents.
+public class DuplicateIndex {
+    private static final DuplicateIndex INSTANCE = new DuplicateIndex();
+
+    private final int bands;
+    private final int rows;
+    private final int hashes;
+    private final int shingle;
+    private final int similarityPercent;
+    private final int maxBucketCompare;
+    // Multiply-shift hash family: h_i(x) = (a_i * x + b_i) >>> 32, a_i odd
+    private final long[] multipliers;
+    private final long[] addends;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock buildLock = new ReentrantLock();
+    private State state;
+    // Writes that arrive while build() streams the bank; replayed onto the new state before it is swapped in
+    private List<Pending> replay;
+    private long version;
+    private volatile Report report;
+    private volatile boolean built;
+    private volatile boolean building;
+
+    public static final class Report {
+        private final int questions;
+        private final int similarityPercent;
+        private final List<int[]> clusters;
+        private final transient long version;
+
+        Report(int questions, int similarityPercent, List<int[]> clusters, long version) {
+            this.questions = questions;
+            this.similarityPercent = similarityPercent;
+            this.clusters = clusters;
+            this.version = version;
+        }
+
+        public int getQuestions() { return questions; }
+
+        public int getSimilarityPercent() { return similarityPercent; }
+
+        // Sorted questionIds per cluster, largest cluster first
+        public List<int[]> getClusters() { return clusters; }
+    }
+
+    private static final class Pending {
+        final Question question; // null for a delete
+        final int questionId;
+
+        Pending(Question question, int questionId) {
+            this.question = question;
+            this.questionId = questionId;
+        }
+    }
+
+    // Open-addressing multimap from a band key to slots. Entries are key << 32 | (slot + 1), 0 is empty.
+    // Nothing is ever removed; dead slots are skipped by readers and dropped by the next build().
+    private static final class BandTable {
+        long[] entries = new long[1024];
+        int count;
+
+        void add(int key, int slot) {
+            if ((count + 1) * 4L > entries.length * 3L) {
+                grow();
+            }
+            insert(entries, ((long) key << 32) | (slot + 1L));
+            count++;
+        }
+
+        // Calls back with every slot stored under key
+        void forEach(int key, SlotVisitor visitor) {
+            int mask = entries.length - 1;
+            for (int i = spread(key) & mask; entries[i] != 0; i = (i + 1) & mask) {
+                if ((int) (entries[i] >>> 32) == key) {
+                    visitor.visit((int) entries[i] - 1);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] bigger = new long[entries.length * 2];
+            for (long entry : entries) {
+                if (entry != 0) {
+                    insert(bigger, entry);
+                }
+            }
+            entries = bigger;
+        }
+
+        private static void insert(long[] table, long entry) {
+            int mask = table.length - 1;
+            int i = spread((int) (entry >>> 32)) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = entry;
+        }
+
+        private static int spread(int key) {
+            return (key * 0x9E3779B9) ^ (key >>> 16);
+        }
+    }
+
+    private interface SlotVisitor {
+        void visit(int slot);
+    }
+
+    // One generation of the index: slots are appended, never reused
+    private final class State {
+        int[] questionIds = new int[1024];
+        byte[] signatures = new byte[1024 * hashes];
+        int size;
+        final BitSet dead = new BitSet();
+        final Map<Integer, Integer> slots = new HashMap<>();
+        final BandTable[] tables = new BandTable[bands];
+
+        State() {
+            for (int b = 0; b < bands; b++) {
+                tables[b] = new BandTable();
+            }
+        }
+
+        void put(Question question) {
+            remove(question.getQuestionId());
+            long[] mins = minHashes(question);
+            if (mins == null) {
+                return;
+            }
+            if (size == questionIds.length) {
+                questionIds = Arrays.copyOf(questionIds, size * 2);
+                signatures = Arrays.copyOf(signatures, size * 2 * hashes);
+            }
+            int slot = size++;
+            questionIds[slot] = question.getQuestionId();
+            for (int i = 0; i < hashes; i++) {
+                signatures[slot * hashes + i] = (byte) mins[i];
+            }
+            for (int b = 0; b < bands; b++) {
+                tables[b].add(bandKey(mins, b), slot);
+            }
+            slots.put(question.getQuestionId(), slot);
+        }
+
+        void remove(int questionId) {
+            Integer slot = slots.remove(questionId);
+            if (slot != null) {
+                dead.set(slot);
+            }
+        }
+
+        int live() {
+            return slots.size();
+        }
+    }
+
+    public static DuplicateIndex getInstance() {
+        return INSTANCE;
+    }
+
+    private DuplicateIndex() {
+        this.bands = AppConfig.getInt("dedup.bands", 16);
+        this.rows = AppConfig.getInt("dedup.rows", 4);
+        this.hashes = bands * rows;
+        this.shingle = AppConfig.getInt("dedup.shingleChars", 5);
+        this.similarityPercent = AppConfig.getInt("dedup.similarityPercent", 80);
+        this.maxBucketCompare = AppConfig.getInt("dedup.maxBucketCompare", 32);
+        this.multipliers = new long[hashes];
+        this.addends = new long[hashes];
+        // Fixed seed, so the same bank always yields the same clusters
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < hashes; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            multipliers[i] = mix(seed) | 1L;
+            seed += 0x9E3779B97F4A7C15L;
+            addends[i] = mix(seed);
+        }
+        this.state = new State();
+    }
+
+    // Streams the whole bank into a fresh generation. Readers and writers keep using the old one meanwhile.
+    public void build(MongoIterable<Question> bank) {
+        buildLock.lock();
+        try {
+            building = true;
+            try {
+                lock.writeLock().lock();
+                try {
+                    replay = new ArrayList<>();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+
+                State fresh = new State();
+                try (MongoCursor<Question> cursor = bank.iterator()) {
+                    while (cursor.hasNext()) {
+                        fresh.put(cursor.next());
+                    }
+                }
+
+                lock.writeLock().lock();
+                try {
+                    for (Pending pending : replay) {
+                        if (pending.question != null) {
+                            fresh.put(pending.question);
+                        } else {
+                            fresh.remove(pending.questionId);
+                        }
+                    }
+                    state = fresh;
+                    version++;
+                    built = true;
+                } finally {
+                    replay = null;
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                building = false;
+            }
+        } finally {
+            buildLock.unlock();
+        }
+    }
+
+    // Runs build() on a daemon thread. False if a build is already running.
+    public static synchronized boolean startBuild(MongoIterable<Question> bank) {
+        DuplicateIndex index = getInstance();
+        if (index.building) {
+            return false;
+        }
+        index.building = true;
+        Thread thread = new Thread(() -> {
+            long started = System.currentTimeMillis();
+            try {
+                index.build(bank);
+                System.out.println("Duplicate index built over " + index.size() + " questions in "
+                        + (System.currentTimeMillis() - started) + " ms");
+            } catch (RuntimeException e) {
+                System.err.println("Failed to build duplicate index: " + e.getMessage());
+            }
+        }, "duplicate-index-build");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return state.live();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    public boolean isBuilding() {
+        return building;
+    }
+
+    public void put(Question question) {
+        lock.writeLock().lock();
+        try {
+            state.put(question);
+            if (replay != null) {
+                replay.add(new Pending(question, question.getQuestionId()));
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(List<Question> questions) {
+        lock.writeLock().lock();
+        try {
+            for (Question question : questions) {
+                state.put(question);
+                if (replay != null) {
+                    replay.add(new Pending(question, question.getQuestionId()));
+                }
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int questionId) {
+        lock.writeLock().lock();
+        try {
+            state.remove(questionId);
+            if (replay != null) {
+                replay.add(new Pending(null, questionId));
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Indexed questions at least similarityPercent alike to this one (itself excluded), ascending
+    public List<Integer> duplicatesOf(Question question) {
+        long[] mins = minHashes(question);
+        if (mins == null) {
+            return new ArrayList<>();
+        }
+        byte[] signature = new byte[hashes];
+        for (int i = 0; i < hashes; i++) {
+            signature[i] = (byte) mins[i];
+        }
+        lock.readLock().lock();
+        try {
+            State current = state;
+            BitSet seen = new BitSet();
+            List<Integer> found = new ArrayList<>();
+            for (int b = 0; b < bands; b++) {
+                current.tables[b].forEach(bandKey(mins, b), slot -> {
+                    if (!seen.get(slot) && !current.dead.get(slot)) {
+                        seen.set(slot);
+                        int questionId = current.questionIds[slot];
+                        if (questionId != question.getQuestionId() && similar(signature, 0, current.signatures, slot * hashes)) {
+                            found.add(questionId);
+                        }
+                    }
+                });
+            }
+            found.sort(null);
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every cluster of two or more near-duplicates. Bucket-mates are confirmed pairwise against at most
+    // maxBucketCompare earlier members, then joined with union-find. Cached until the next write.
+    public Report report() {
+        lock.readLock().lock();
+        try {
+            Report cached = report;
+            if (cached != null && cached.version == version) {
+                return cached;
+            }
+            State current = state;
+            int n = current.size;
+            int[] parent = new int[n];
+            for (int i = 0; i < n; i++) {
+                parent[i] = i;
+            }
+            for (BandTable table : current.tables) {
+                long[] entries = new long[table.count];
+                int k = 0;
+                for (long entry : table.entries) {
+                    if (entry != 0 && !current.dead.get((int) entry - 1)) {
+                        entries[k++] = entry;
+                    }
+                }
+                // Sorting puts equal keys next to each other
+                Arrays.sort(entries, 0, k);
+                for (int start = 0, end; start < k; start = end) {
+                    long key = entries[start] >>> 32;
+                    end = start + 1;
+                    while (end < k && entries[end] >>> 32 == key) {
+                        end++;
+                    }
+                    for (int i = start + 1; i < end; i++) {
+                        int slot = (int) entries[i] - 1;
+                        for (int j = Math.max(start, i - maxBucketCompare); j < i; j++) {
+                            int other = (int) entries[j] - 1;
+                            if (find(parent, slot) != find(parent, other)
+                                    && similar(current.signatures, slot * hashes, current.signatures, other * hashes)) {
+                                parent[find(parent, slot)] = find(parent, other);
+                            }
+                        }
+                    }
+                }
+            }
+
+            Map<Integer, List<Integer>> groups = new HashMap<>();
+            for (int slot = 0; slot < n; slot++) {
+                if (!current.dead.get(slot)) {
+                    groups.computeIfAbsent(find(parent, slot), r -> new ArrayList<>()).add(current.questionIds[slot]);
+                }
+            }
+            List<int[]> clusters = new ArrayList<>();
+            for (List<Integer> group : groups.values()) {
+                if (group.size() > 1) {
+                    int[] ids = group.stream().mapToInt(Integer::intValue).sorted().toArray();
+                    clusters.add(ids);
+                }
+            }
+            clusters.sort(Comparator.<int[]>comparingInt(ids -> -ids.length).thenComparingInt(ids -> ids[0]));
+            Report fresh = new Report(current.live(), similarityPercent, clusters, version);
+            report = fresh;
+            return fresh;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // b-bit estimate: two unrelated signatures still agree on 1/256 of their bytes by chance
+    private boolean similar(byte[] a, int aFrom, byte[] b, int bFrom) {
+        int matches = 0;
+        for (int i = 0; i < hashes; i++) {
+            if (a[aFrom + i] == b[bFrom + i]) {
+                matches++;
+            }
+        }
+        double estimate = ((double) matches / hashes - 1.0 / 256) / (1 - 1.0 / 256);
+        return estimate * 100 >= similarityPercent;
+    }
+
+    // Min-hash per hash function over the shingles of the normalised text, null when there is no text
+    private long[] minHashes(Question question) {
+        String text = normalize(question);
+        if (text.isEmpty()) {
+            return null;
+        }
+        long[] mins = new long[hashes];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        int width = Math.min(shingle, text.length());
+        for (int start = 0; start + width <= text.length(); start++) {
+            long h = 0;
+            for (int i = start; i < start + width; i++) {
+                h = h * 31 + text.charAt(i);
+            }
+            h = mix(h);
+            for (int i = 0; i < hashes; i++) {
+                long value = (multipliers[i] * h + addends[i]) >>> 32;
+                if (value < mins[i]) {
+                    mins[i] = value;
+                }
+            }
+        }
+        return mins;
+    }
+
+    private int bandKey(long[] mins, int band) {
+        long h = band;
+        for (int r = band * rows; r < (band + 1) * rows; r++) {
+            h = mix(h * 0x100000001B3L ^ mins[r]);
+        }
+        return (int) h;
+    }
+
+    // Lower-case letters and digits with single spaces between words; punctuation and spacing edits vanish
+    static String normalize(Question question) {
+        StringBuilder text = new StringBuilder();
+        appendNormalized(text, question.getQuestionText());
+        if (question.getOptions() != null) {
+            for (String option : question.getOptions()) {
+                appendNormalized(text, option);
+            }
+        }
+        int end = text.length();
+        if (end > 0 && text.charAt(end - 1) == ' ') {
+            text.setLength(end - 1);
+        }
+        return text.toString();
+    }
+
+    private static void appendNormalized(StringBuilder text, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                text.append(Character.toLowerCase(c));
+            } else if (text.length() > 0 && text.charAt(text.length() - 1) != ' ') {
+                text.append(' ');
+            }
+        }
+        if (text.length() > 0 && text.charAt(text.length() - 1) != ' ') {
+            text.append(' ');
+        }
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,390 @@
+package com.exam.search;
+
+import com.exam.model.Question;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-process search over the question bank. Text from questionText and options is tokenised into
+// postings lists (sorted int arrays of questionIds); subject, difficulty and marks are BitSets
+// indexed by questionId. Kept current by ContentEvents, built once at startup.
+public class QuestionSearchIndex {
+    private static final QuestionSearchIndex INSTANCE = new QuestionSearchIndex();
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "how", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "was", "what", "which", "who", "with"));
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, BitSet> subjects = new HashMap<>();
+    private final Map<String, BitSet> difficulties = new HashMap<>();
+    private final Map<Integer, BitSet> marks = new HashMap<>();
+    private final BitSet live = new BitSet();
+    // Sorted questionIds per "subject|difficulty", built on first use and dropped on any write
+    private final Map<String, int[]> pools = new ConcurrentHashMap<>();
+    // What each question was indexed under, so an update or delete can take it out again
+    private final Map<Integer, Indexed> documents = new HashMap<>();
+    private volatile boolean built;
+
+    private static final class Indexed {
+        final String[] tokens;
+        final String subject;
+        final String difficulty;
+        final int marks;
+
+        Indexed(String[] tokens, String subject, String difficulty, int marks) {
+            this.tokens = tokens;
+            this.subject = subject;
+            this.difficulty = difficulty;
+            this.marks = marks;
+        }
+    }
+
+    // Growable sorted int array. questionIds are handed out in increasing order, so adds are appends.
+    private static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+
+    public static final class Result {
+        private final int[] questionIds;
+        private final int total;
+
+        Result(int[] questionIds, int total) {
+            this.questionIds = questionIds;
+            this.total = total;
+        }
+
+        // This page, ascending
+        public int[] getQuestionIds() { return questionIds; }
+
+        // All matches, not just this page
+        public int getTotal() { return total; }
+    }
+
+    public static QuestionSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // Streams the whole bank into a fresh index
+    public void build(MongoIterable<Question> bank) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            subjects.clear();
+            difficulties.clear();
+            marks.clear();
+            live.clear();
+            documents.clear();
+            pools.clear();
+            try (MongoCursor<Question> cursor = bank.iterator()) {
+                while (cursor.hasNext()) {
+                    addLocked(cursor.next());
+                }
+            }
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Adds the question, replacing whatever was indexed under its questionId
+    public void put(Question question) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(question.getQuestionId());
+            addLocked(question);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(List<Question> questions) {
+        lock.writeLock().lock();
+        try {
+            for (Question question : questions) {
+                removeLocked(question.getQuestionId());
+                addLocked(question);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sorted ids of every question in the subject with the difficulty (null = any difficulty)
+    public int[] pool(String subject, String difficulty) {
+        String key = normalizeSubject(subject) + "|" + (difficulty != null ? normalizeDifficulty(difficulty) : "*");
+        int[] cached = pools.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        lock.readLock().lock();
+        try {
+            BitSet bits = subjects.get(normalizeSubject(subject));
+            if (bits == null) {
+                return new int[0];
+            }
+            if (difficulty != null) {
+                BitSet level = difficulties.get(normalizeDifficulty(difficulty));
+                if (level == null) {
+                    return new int[0];
+                }
+                bits = (BitSet) bits.clone();
+                bits.and(level);
+            }
+            int[] ids = bits.stream().toArray();
+            pools.put(key, ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 0 if the question is not indexed
+    public int marksOf(int questionId) {
+        lock.readLock().lock();
+        try {
+            Indexed doc = documents.get(questionId);
+            return doc != null ? doc.marks : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void remove(int questionId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(questionId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // All criteria are optional and ANDed; text matches every token. Returns up to limit ids above afterId.
+    // Null or blank text means no text filter. Text with nothing indexable in it (only stop words,
+    // punctuation or single letters) matches nothing rather than the whole bank.
+    public Result search(String text, String subject, String difficulty, Integer marksValue, int afterId, int limit) {
+        boolean textFilter = text != null && !text.trim().isEmpty();
+        String[] terms = textFilter ? tokenize(text) : new String[0];
+        if (textFilter && terms.length == 0) {
+            return empty();
+        }
+        lock.readLock().lock();
+        try {
+            List<BitSet> facets = new ArrayList<>(3);
+            if (subject != null && !addFacet(facets, subjects.get(normalizeSubject(subject)))) {
+                return empty();
+            }
+            if (difficulty != null && !addFacet(facets, difficulties.get(normalizeDifficulty(difficulty)))) {
+                return empty();
+            }
+            if (marksValue != null && !addFacet(facets, marks.get(marksValue))) {
+                return empty();
+            }
+
+            if (terms.length == 0) {
+                return searchFacets(facets, afterId, limit);
+            }
+
+            // Intersect postings starting from the shortest list
+            Postings[] lists = new Postings[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                lists[i] = postings.get(terms[i]);
+                if (lists[i] == null) {
+                    return empty();
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            int[] page = new int[limit];
+            int found = 0;
+            int total = 0;
+            Postings shortest = lists[0];
+            candidates:
+            for (int c = 0; c < shortest.size; c++) {
+                int id = shortest.ids[c];
+                for (int i = 1; i < lists.length; i++) {
+                    if (Arrays.binarySearch(lists[i].ids, 0, lists[i].size, id) < 0) {
+                        continue candidates;
+                    }
+                }
+                for (BitSet facet : facets) {
+                    if (!facet.get(id)) {
+                        continue candidates;
+                    }
+                }
+                total++;
+                if (id > afterId && found < limit) {
+                    page[found++] = id;
+                }
+            }
+            return new Result(Arrays.copyOf(page, found), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Result searchFacets(List<BitSet> facets, int afterId, int limit) {
+        BitSet matches;
+        if (facets.isEmpty()) {
+            matches = live;
+        } else {
+            facets.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+            matches = (BitSet) facets.get(0).clone();
+            for (int i = 1; i < facets.size(); i++) {
+                matches.and(facets.get(i));
+            }
+        }
+        int[] page = new int[limit];
+        int found = 0;
+        for (int id = matches.nextSetBit(afterId + 1); id >= 0 && found < limit; id = matches.nextSetBit(id + 1)) {
+            page[found++] = id;
+        }
+        return new Result(Arrays.copyOf(page, found), matches.cardinality());
+    }
+
+    private static boolean addFacet(List<BitSet> facets, BitSet facet) {
+        if (facet == null) {
+            return false;
+        }
+        facets.add(facet);
+        return true;
+    }
+
+    private static Result empty() {
+        return new Result(new int[0], 0);
+    }
+
+    private void addLocked(Question question) {
+        pools.clear();
+        int id = question.getQuestionId();
+        if (id <= 0) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        if (question.getQuestionText() != null) {
+            text.append(question.getQuestionText());
+        }
+        if (question.getOptions() != null) {
+            for (String option : question.getOptions()) {
+                text.append(' ').append(option);
+            }
+        }
+        String[] tokens = tokenize(text.toString());
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new Postings()).add(id);
+        }
+        String subject = normalizeSubject(question.getSubject());
+        String difficulty = normalizeDifficulty(question.getDifficulty());
+        subjects.computeIfAbsent(subject, s -> new BitSet()).set(id);
+        difficulties.computeIfAbsent(difficulty, d -> new BitSet()).set(id);
+        marks.computeIfAbsent(question.getMarks(), m -> new BitSet()).set(id);
+        live.set(id);
+        documents.put(id, new Indexed(tokens, subject, difficulty, question.getMarks()));
+    }
+
+    private void removeLocked(int id) {
+        pools.clear();
+        Indexed old = documents.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String token : old.tokens) {
+            Postings list = postings.get(token);
+            if (list != null) {
+                list.remove(id);
+                if (list.size == 0) {
+                    postings.remove(token);
+                }
+            }
+        }
+        clearFacet(subjects, old.subject, id);
+        clearFacet(difficulties, old.difficulty, id);
+        clearFacet(marks, old.marks, id);
+        live.clear(id);
+    }
+
+    private static <K> void clearFacet(Map<K, BitSet> facet, K key, int id) {
+        BitSet bits = facet.get(key);
+        if (bits != null) {
+            bits.clear(id);
+            if (bits.isEmpty()) {
+                facet.remove(key);
+            }
+        }
+    }
+
+    // Distinct lower-case words of two or more letters/digits, minus stop words
+    static String[] tokenize(String text) {
+        Set<String> tokens = new HashSet<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                String word = token.toString();
+                if (word.length() > 1 && !STOP_WORDS.contains(word)) {
+                    tokens.add(word);
+                }
+                token.setLength(0);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private static String normalizeSubject(String subject) {
+        return subject != null ? subject.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static String normalizeDifficulty(String difficulty) {
+        return difficulty != null ? difficulty.trim().toUpperCase(Locale.ROOT) : "";
+    }
+}
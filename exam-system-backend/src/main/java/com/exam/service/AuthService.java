@@ -6,15 +6,22 @@ import com.exam.util.PasswordUtils;
 
 public class AuthService {
     private final UserDao userDao;
+    private final PasswordHasher passwordHasher;
 
     public AuthService() {
         this.userDao = new UserDao();
+        this.passwordHasher = PasswordHasher.getInstance();
     }
 
     public User login(String email, String password) {
         User user = userDao.findByEmail(email);
         
-        if (user != null && PasswordUtils.checkPassword(password, user.getPassword())) {
+        if (user != null && passwordHasher.check(password, user.getPassword())) {
+            // Upgrade hashes made with an older cost factor while we still have the plain password
+            if (PasswordUtils.needsRehash(user.getPassword())) {
+                int userId = user.getUserId();
+                passwordHasher.runInBackground(() -> userDao.updatePassword(userId, PasswordUtils.hashPassword(password)));
+            }
             // Remove password before returning to controller/frontend
             user.setPassword(null);
             return user;
@@ -30,7 +37,7 @@ public class AuthService {
         }
 
         // Hash the password
-        String hashedPassword = PasswordUtils.hashPassword(user.getPassword());
+        String hashedPassword = passwordHasher.hash(user.getPassword());
         user.setPassword(hashedPassword);
 
         // Save to DB
@@ -0,0 +1,153 @@
+package com.exam.service;
+
+import com.exam.config.AppConfig;
+import com.exam.model.Blueprint;
+import com.exam.model.Exam;
+import com.exam.search.QuestionSearchIndex;
+import com.exam.util.Permutations;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Draws a concrete question set for a blueprint from the search index's per-(subject, difficulty) pools.
+// Each rule takes count distinct ids with Floyd's algorithm, O(count) however big the pool. When the
+// blueprint fixes totalMarks, random same-rule swaps then close the gap. Nothing is read from Mongo.
+public class BlueprintResolver {
+    private final QuestionSearchIndex index;
+    private final int maxSwaps;
+
+    public BlueprintResolver() {
+        this(QuestionSearchIndex.getInstance());
+    }
+
+    public BlueprintResolver(QuestionSearchIndex index) {
+        this.index = index;
+        this.maxSwaps = AppConfig.getInt("blueprint.maxSwaps", 2000);
+    }
+
+    // Throws IllegalArgumentException when the bank cannot satisfy the blueprint
+    public List<Integer> resolve(Blueprint blueprint, long seed) {
+        List<Blueprint.Rule> rules = blueprint.getRules();
+        if (rules == null || rules.isEmpty()) {
+            throw new IllegalArgumentException("Blueprint needs at least one rule");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        int[][] pools = new int[rules.size()][];
+        int[][] picks = new int[rules.size()][];
+        BitSet chosen = new BitSet();
+        int total = 0;
+
+        for (int r = 0; r < rules.size(); r++) {
+            Blueprint.Rule rule = rules.get(r);
+            if (rule.getSubject() == null || rule.getCount() <= 0) {
+                throw new IllegalArgumentException("Every rule needs a subject and a positive count");
+            }
+            pools[r] = index.pool(rule.getSubject(), rule.getDifficulty());
+            picks[r] = sample(pools[r], rule.getCount(), chosen, random, rule);
+            for (int id : picks[r]) {
+                total += index.marksOf(id);
+            }
+        }
+
+        int target = blueprint.getTotalMarks();
+        if (target > 0 && total != target) {
+            total = rebalance(pools, picks, chosen, random, total, target);
+            if (total != target) {
+                throw new IllegalArgumentException("Blueprint cannot reach " + target + " marks (closest " + total + ")");
+            }
+        }
+
+        List<Integer> questionIds = new ArrayList<>(chosen.cardinality());
+        for (int id = chosen.nextSetBit(0); id >= 0; id = chosen.nextSetBit(id + 1)) {
+            questionIds.add(id);
+        }
+        return questionIds;
+    }
+
+    // Same draw for the same (exam, student) as long as the bank has not changed
+    public List<Integer> resolveForStudent(Exam exam, int studentId) {
+        return resolve(exam.getBlueprint(), Permutations.seed(exam.getExamId(), studentId));
+    }
+
+    // Question set for this student, falling back to the exam's own set when their draw cannot be satisfied
+    public List<Integer> questionIdsFor(Exam exam, int studentId) {
+        if (!exam.hasPerStudentQuestions()) {
+            return exam.getQuestionIds();
+        }
+        try {
+            return resolveForStudent(exam, studentId);
+        } catch (IllegalArgumentException e) {
+            return exam.getQuestionIds() != null ? exam.getQuestionIds() : Collections.emptyList();
+        }
+    }
+
+    // Floyd's algorithm over pool positions; ids already taken by an earlier rule are topped up from untried positions
+    private int[] sample(int[] pool, int count, BitSet chosen, SplittableRandom random, Blueprint.Rule rule) {
+        int n = pool.length;
+        if (count > n) {
+            throw new IllegalArgumentException("Only " + n + " questions match " + describe(rule) + ", " + count + " needed");
+        }
+        int[] picked = new int[count];
+        int found = 0;
+        BitSet tried = new BitSet(n);
+        int triedCount = 0;
+        for (int j = n - count; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int position = tried.get(t) ? j : t;
+            tried.set(position);
+            triedCount++;
+            if (!chosen.get(pool[position])) {
+                chosen.set(pool[position]);
+                picked[found++] = pool[position];
+            }
+        }
+        while (found < count) {
+            if (triedCount == n) {
+                throw new IllegalArgumentException("Not enough distinct questions for " + describe(rule));
+            }
+            int position = tried.nextClearBit(random.nextInt(n));
+            if (position >= n) {
+                position = tried.nextClearBit(0);
+            }
+            tried.set(position);
+            triedCount++;
+            if (!chosen.get(pool[position])) {
+                chosen.set(pool[position]);
+                picked[found++] = pool[position];
+            }
+        }
+        return picked;
+    }
+
+    // Swap a picked question for an unpicked one of the same rule whenever that brings the total closer
+    private int rebalance(int[][] pools, int[][] picks, BitSet chosen, SplittableRandom random, int total, int target) {
+        for (int attempt = 0; attempt < maxSwaps && total != target; attempt++) {
+            int r = random.nextInt(picks.length);
+            int[] pool = pools[r];
+            if (pool.length == picks[r].length) {
+                continue;
+            }
+            int slot = random.nextInt(picks[r].length);
+            int candidate = pool[random.nextInt(pool.length)];
+            if (chosen.get(candidate)) {
+                continue;
+            }
+            int outgoing = picks[r][slot];
+            int swapped = total - index.marksOf(outgoing) + index.marksOf(candidate);
+            if (Math.abs(swapped - target) < Math.abs(total - target)) {
+                chosen.clear(outgoing);
+                chosen.set(candidate);
+                picks[r][slot] = candidate;
+                total = swapped;
+            }
+        }
+        return total;
+    }
+
+    private static String describe(Blueprint.Rule rule) {
+        return rule.getSubject() + (rule.getDifficulty() != null ? "/" + rule.getDifficulty() : "");
+    }
+}
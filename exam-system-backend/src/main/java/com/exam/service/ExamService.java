@@ -0,0 +1,47 @@
+package com.exam.service;
+
+import com.exam.dao.QuestionDao;
+import com.exam.dao.UserDao;
+import com.exam.grading.GradingEngine;
+import com.exam.model.Exam;
+import com.exam.model.ExamResult;
+import com.exam.model.User;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// Turns a finished answer sheet into a graded ExamResult; shared by submit and timer expiry
+public class ExamService {
+    private final UserDao userDao;
+    private final GradingEngine gradingEngine;
+
+    public ExamService() {
+        this(new UserDao(), new GradingEngine(new QuestionDao()));
+    }
+
+    public ExamService(UserDao userDao, GradingEngine gradingEngine) {
+        this.userDao = userDao;
+        this.gradingEngine = gradingEngine;
+    }
+
+    // questionIds: the student's own question set for per-student blueprint exams, null for the exam's
+    public void fillResult(ExamResult result, Exam exam, int studentId, Map<Integer, Integer> answers,
+                           List<Integer> questionIds) {
+        result.setExamId(exam.getExamId());
+        result.setExamTitle(exam.getTitle());
+        result.setStudentId(studentId);
+        // Calculate Score against this exam's answer key only
+        gradingEngine.grade(exam, answers, result, questionIds);
+
+        User student = userDao.findById(studentId);
+        if (student != null) {
+            result.setStudentName(student.getFullName());
+            result.setStudentEmail(student.getEmail());
+        } else {
+            result.setStudentName("Unknown Student");
+            result.setStudentEmail("unknown@example.com");
+        }
+        result.setSubmittedAt(Instant.now().toString());
+    }
+}
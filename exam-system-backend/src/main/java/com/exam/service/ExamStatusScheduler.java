@@ -0,0 +1,286 @@
+package com.exam.service;
+
+import com.exam.cache.ContentEvents;
+import com.exam.config.AppConfig;
+import com.exam.dao.ExamDao;
+import com.exam.model.Exam;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Derives Exam.status from scheduledAt + duration and flips it at the boundary: UPCOMING until the start,
+// ONGOING until start + duration, then COMPLETED. Exams without a parseable scheduledAt keep the status
+// the teacher set. The next boundary of every scheduled exam sits in one time-ordered map and a single
+// thread sleeps until the earliest of them. Only exams with a boundary still ahead are held: one is dropped
+// once COMPLETED (saving it again tracks it anew) or when it is deleted.
+public class ExamStatusScheduler {
+    public static final String UPCOMING = "UPCOMING";
+    public static final String ONGOING = "ONGOING";
+    public static final String COMPLETED = "COMPLETED";
+
+    private static ExamStatusScheduler instance;
+    // The frontend sends datetime-local values ("2024-05-01T09:30") with no zone
+    private static final ZoneId ZONE = ZoneId.of(AppConfig.get("exam.schedule.zone", ZoneId.systemDefault().getId()));
+
+    private final ExamDao examDao;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final TreeMap<Long, Set<Integer>> transitions = new TreeMap<>();
+    private final Map<Integer, Long> nextTransition = new HashMap<>();
+    private final Map<Integer, long[]> windows = new HashMap<>(); // examId -> {start, end}
+    private final Map<Integer, String> statuses = new HashMap<>(); // last status stored, for tracked exams
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public static synchronized ExamStatusScheduler getInstance() {
+        if (instance == null) {
+            instance = new ExamStatusScheduler(new ExamDao());
+        }
+        return instance;
+    }
+
+    public ExamStatusScheduler(ExamDao examDao) {
+        this.examDao = examDao;
+    }
+
+    // Start of the exam in epoch millis, or -1 if scheduledAt is missing or unparseable
+    public static long startOf(Exam exam) {
+        String scheduledAt = exam.getScheduledAt();
+        if (scheduledAt == null || scheduledAt.isEmpty()) {
+            return -1;
+        }
+        try {
+            return LocalDateTime.parse(scheduledAt).atZone(ZONE).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // Fall through to zoned formats
+        }
+        try {
+            return OffsetDateTime.parse(scheduledAt).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // Fall through
+        }
+        try {
+            return Instant.parse(scheduledAt).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    // End of the exam window in epoch millis, or -1 if the exam is not scheduled
+    public static long endOf(Exam exam) {
+        long start = startOf(exam);
+        return start < 0 ? -1 : start + TimeUnit.MINUTES.toMillis(Math.max(exam.getDuration(), 0));
+    }
+
+    public static String computeStatus(Exam exam, long now) {
+        long start = startOf(exam);
+        if (start < 0) {
+            return exam.getStatus();
+        }
+        if (now < start) {
+            return UPCOMING;
+        }
+        return now < endOf(exam) ? ONGOING : COMPLETED;
+    }
+
+    // Brings every exam's stored status up to date (boundaries may have passed while we were down) and starts the thread
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        for (Exam exam : examDao.findAll()) {
+            track(exam);
+        }
+        running = true;
+        worker = new Thread(this::run, "exam-status");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = worker;
+            worker = null;
+        }
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Called for every saved exam: persists a stale status and (re)schedules its next boundary
+    public void track(Exam exam) {
+        int examId = exam.getExamId();
+        long start = startOf(exam);
+        String stored = exam.getStatus();
+        lock.lock();
+        try {
+            forget(examId);
+            if (start >= 0) {
+                windows.put(examId, new long[] { start, endOf(exam) });
+                statuses.put(examId, stored);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (start >= 0) {
+            advance(examId, System.currentTimeMillis());
+        }
+    }
+
+    // For a deleted exam, so nothing more is written for it
+    public void untrack(int examId) {
+        lock.lock();
+        try {
+            forget(examId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Status of an exam still being tracked; null once it is COMPLETED, unscheduled or deleted
+    public String getStatus(int examId) {
+        lock.lock();
+        try {
+            return statuses.get(examId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            List<Integer> due = new ArrayList<>();
+            long now;
+            lock.lock();
+            try {
+                while (running && (transitions.isEmpty() || transitions.firstKey() > System.currentTimeMillis())) {
+                    if (transitions.isEmpty()) {
+                        changed.await();
+                    } else {
+                        changed.await(transitions.firstKey() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                    }
+                }
+                now = System.currentTimeMillis();
+                while (!transitions.isEmpty() && transitions.firstKey() <= now) {
+                    for (Integer examId : transitions.pollFirstEntry().getValue()) {
+                        nextTransition.remove(examId);
+                        due.add(examId);
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            for (Integer examId : due) {
+                try {
+                    advance(examId, now);
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to update status of exam " + examId + ": " + e.getMessage());
+                    // Try again shortly rather than leave the exam stuck
+                    lock.lock();
+                    try {
+                        schedule(examId, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5));
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+    }
+
+    // Moves the exam to the status its window implies at `now`, then schedules the following boundary
+    private void advance(int examId, long now) {
+        String status;
+        boolean changedStatus;
+        lock.lock();
+        try {
+            long[] window = windows.get(examId);
+            if (window == null) {
+                return;
+            }
+            status = now < window[0] ? UPCOMING : now < window[1] ? ONGOING : COMPLETED;
+            changedStatus = !status.equals(statuses.get(examId));
+        } finally {
+            lock.unlock();
+        }
+
+        if (changedStatus) {
+            examDao.updateStatus(examId, status);
+            ContentEvents.examStatusChanged(examId, status);
+        }
+
+        lock.lock();
+        try {
+            long[] window = windows.get(examId);
+            if (window == null) {
+                return;
+            }
+            statuses.put(examId, status);
+            if (UPCOMING.equals(status)) {
+                schedule(examId, window[0]);
+            } else if (ONGOING.equals(status)) {
+                schedule(examId, window[1]);
+            } else {
+                // No boundary left
+                forget(examId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private void schedule(int examId, long at) {
+        unschedule(examId);
+        transitions.computeIfAbsent(at, k -> new HashSet<>()).add(examId);
+        nextTransition.put(examId, at);
+        changed.signal();
+    }
+
+    // Caller holds the lock
+    private void forget(int examId) {
+        unschedule(examId);
+        windows.remove(examId);
+        statuses.remove(examId);
+    }
+
+    private void unschedule(int examId) {
+        Long at = nextTransition.remove(examId);
+        if (at != null) {
+            Set<Integer> examIds = transitions.get(at);
+            examIds.remove(examId);
+            if (examIds.isEmpty()) {
+                transitions.remove(at);
+            }
+        }
+    }
+}
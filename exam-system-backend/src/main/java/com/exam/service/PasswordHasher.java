@@ -0,0 +1,77 @@
+package com.exam.service;
+
+import com.exam.config.AppConfig;
+import com.exam.util.PasswordUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs BCrypt on a core-count sized pool so a login wave cannot pin every request thread.
+// When the queue is full callers get RejectedExecutionException straight away.
+public class PasswordHasher {
+    private static final PasswordHasher INSTANCE = new PasswordHasher();
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    public static PasswordHasher getInstance() {
+        return INSTANCE;
+    }
+
+    private PasswordHasher() {
+        int threads = AppConfig.getInt("auth.bcrypt.threads", Runtime.getRuntime().availableProcessors());
+        int queueSize = AppConfig.getInt("auth.bcrypt.queueSize", threads * 16);
+        this.timeoutMs = AppConfig.getLong("auth.bcrypt.timeoutMs", 5000);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean check(String plainTextPassword, String hashedPassword) {
+        return await(() -> PasswordUtils.checkPassword(plainTextPassword, hashedPassword));
+    }
+
+    public String hash(String plainTextPassword) {
+        return await(() -> PasswordUtils.hashPassword(plainTextPassword));
+    }
+
+    // Fire-and-forget work such as upgrading an outdated hash; silently dropped when the pool is saturated
+    public void runInBackground(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The next login will try again
+        }
+    }
+
+    private <T> T await(Callable<T> task) {
+        Future<T> future = executor.submit(task);
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RejectedExecutionException("Password check timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new RejectedExecutionException("Interrupted while waiting for password check");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+    }
+}
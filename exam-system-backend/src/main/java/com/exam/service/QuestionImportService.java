@@ -0,0 +1,285 @@
+package com.exam.service;
+
+import com.exam.config.AppConfig;
+import com.exam.dao.QuestionDao;
+import com.exam.model.Question;
+import com.exam.util.CsvReader;
+import com.exam.util.CsvWriter;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.mongodb.client.MongoCursor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Bulk question import/export. Uploads are parsed row by row straight from the request body and
+// written in ordered insertMany batches; only the current batch is ever held in memory.
+//
+// CSV columns (header required, any order, case-insensitive):
+//   questionText, subject, difficulty, marks, correctAnswer, option1, option2, ...
+// A questionId column is accepted but ignored; imported questions always get new ids.
+// JSON Lines: one Question object per line, same fields as the REST API.
+public class QuestionImportService {
+    private static final List<String> DIFFICULTIES = Arrays.asList("EASY", "MEDIUM", "HARD");
+    private static final List<String> CSV_COLUMNS = Arrays.asList(
+            "questionId", "questionText", "subject", "difficulty", "marks", "correctAnswer");
+
+    private final QuestionDao questionDao;
+    private final Gson gson = new Gson();
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public QuestionImportService(QuestionDao questionDao) {
+        this.questionDao = questionDao;
+        this.batchSize = AppConfig.getInt("import.batch.size", 1000);
+        this.maxReportedErrors = AppConfig.getInt("import.maxReportedErrors", 1000);
+    }
+
+    // Per-upload tally: {"inserted": n, "failed": n, "errors": [{"row": r, "error": "..."}]}
+    private final class Report {
+        long inserted;
+        long failed;
+        final JsonArray errors = new JsonArray();
+        final List<Question> batch = new ArrayList<>();
+        final List<Long> batchRows = new ArrayList<>();
+
+        void reject(long row, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                JsonObject error = new JsonObject();
+                error.addProperty("row", row);
+                error.addProperty("error", message);
+                errors.add(error);
+            }
+        }
+
+        void add(long row, Question question) {
+            String problem = validate(question);
+            if (problem != null) {
+                reject(row, problem);
+                return;
+            }
+            batch.add(question);
+            batchRows.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<Integer, String> failures = questionDao.createQuestions(batch);
+            inserted += batch.size() - failures.size();
+            for (Map.Entry<Integer, String> failure : failures.entrySet()) {
+                reject(batchRows.get(failure.getKey()), failure.getValue());
+            }
+            batch.clear();
+            batchRows.clear();
+        }
+
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("inserted", inserted);
+            json.addProperty("failed", failed);
+            json.add("errors", errors);
+            return json;
+        }
+    }
+
+    // Rows are numbered by the line they start on, header included
+    public JsonObject importCsv(Reader body) throws IOException {
+        Report report = new Report();
+        CsvReader csv = new CsvReader(body);
+        List<String> header = csv.next();
+        if (header == null) {
+            return report.toJson();
+        }
+
+        Map<String, Integer> columns = new HashMap<>();
+        // Options are ordered by the N in optionN, not by where the column sits, since correctAnswer indexes them
+        TreeMap<Integer, Integer> optionsByNumber = new TreeMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            if (name.toLowerCase(Locale.ROOT).startsWith("option")) {
+                int number = optionNumber(name);
+                if (optionsByNumber.put(number, i) != null) {
+                    throw new IllegalArgumentException("Duplicate CSV column: " + name);
+                }
+            } else {
+                columns.put(name.toLowerCase(Locale.ROOT), i);
+            }
+        }
+        if (!optionsByNumber.isEmpty() && optionsByNumber.lastKey() != optionsByNumber.size()) {
+            throw new IllegalArgumentException("Option columns must be numbered option1 to option" + optionsByNumber.size()
+                    + " without gaps");
+        }
+        List<Integer> optionColumns = new ArrayList<>(optionsByNumber.values());
+        for (String required : CSV_COLUMNS.subList(1, CSV_COLUMNS.size())) {
+            if (!columns.containsKey(required.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("Missing CSV column: " + required);
+            }
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            long row = csv.getRecordLine();
+            try {
+                Question question = new Question();
+                question.setQuestionText(cell(record, columns, "questiontext"));
+                question.setSubject(cell(record, columns, "subject"));
+                question.setDifficulty(cell(record, columns, "difficulty"));
+                question.setMarks(Integer.parseInt(cell(record, columns, "marks").trim()));
+                question.setCorrectAnswer(Integer.parseInt(cell(record, columns, "correctanswer").trim()));
+                // Positional, so correctAnswer keeps pointing at the same option. Only the trailing
+                // empty cells are dropped (exports pad every row to the widest question); a gap
+                // before the last option is left in and rejected by validate().
+                List<String> options = new ArrayList<>();
+                for (int column : optionColumns) {
+                    options.add(column < record.size() ? record.get(column) : "");
+                }
+                while (!options.isEmpty() && isBlank(options.get(options.size() - 1))) {
+                    options.remove(options.size() - 1);
+                }
+                question.setOptions(options);
+                report.add(row, question);
+            } catch (NumberFormatException e) {
+                report.reject(row, "marks and correctAnswer must be integers");
+            }
+        }
+        report.flush();
+        return report.toJson();
+    }
+
+    // Rows are numbered by line
+    public JsonObject importJsonLines(Reader body) throws IOException {
+        Report report = new Report();
+        BufferedReader reader = body instanceof BufferedReader ? (BufferedReader) body : new BufferedReader(body);
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                Question question = gson.fromJson(line, Question.class);
+                if (question == null) {
+                    report.reject(row, "Expected a JSON object");
+                    continue;
+                }
+                report.add(row, question);
+            } catch (JsonParseException e) {
+                report.reject(row, "Malformed JSON: " + e.getMessage());
+            }
+        }
+        report.flush();
+        return report.toJson();
+    }
+
+    public void exportCsv(Writer out) throws IOException {
+        int optionCount = questionDao.findMaxOptionCount();
+        CsvWriter csv = new CsvWriter(out);
+        List<String> header = new ArrayList<>(CSV_COLUMNS);
+        for (int i = 1; i <= optionCount; i++) {
+            header.add("option" + i);
+        }
+        csv.writeRecord(header);
+
+        List<String> record = new ArrayList<>(header.size());
+        try (MongoCursor<Question> cursor = questionDao.iterateAllSorted().iterator()) {
+            while (cursor.hasNext()) {
+                Question question = cursor.next();
+                record.clear();
+                record.add(String.valueOf(question.getQuestionId()));
+                record.add(question.getQuestionText());
+                record.add(question.getSubject());
+                record.add(question.getDifficulty());
+                record.add(String.valueOf(question.getMarks()));
+                record.add(String.valueOf(question.getCorrectAnswer()));
+                List<String> options = question.getOptions();
+                for (int i = 0; i < optionCount; i++) {
+                    record.add(options != null && i < options.size() ? options.get(i) : "");
+                }
+                csv.writeRecord(record);
+            }
+        }
+        csv.flush();
+    }
+
+    public void exportJsonLines(Writer out) throws IOException {
+        try (MongoCursor<Question> cursor = questionDao.iterateAllSorted().iterator()) {
+            while (cursor.hasNext()) {
+                gson.toJson(cursor.next(), Question.class, out);
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    // Null when the question can be stored; normalises difficulty to upper case
+    private static String validate(Question question) {
+        if (isBlank(question.getQuestionText())) {
+            return "questionText is required";
+        }
+        if (isBlank(question.getSubject())) {
+            return "subject is required";
+        }
+        if (question.getDifficulty() == null
+                || !DIFFICULTIES.contains(question.getDifficulty().trim().toUpperCase(Locale.ROOT))) {
+            return "difficulty must be one of " + DIFFICULTIES;
+        }
+        question.setDifficulty(question.getDifficulty().trim().toUpperCase(Locale.ROOT));
+        List<String> options = question.getOptions();
+        if (options == null || options.size() < 2) {
+            return "at least two options are required";
+        }
+        for (int i = 0; i < options.size(); i++) {
+            if (isBlank(options.get(i))) {
+                return "option " + (i + 1) + " is blank; options must not have gaps";
+            }
+        }
+        if (question.getCorrectAnswer() < 0 || question.getCorrectAnswer() >= options.size()) {
+            return "correctAnswer must be an option index between 0 and " + (options.size() - 1);
+        }
+        if (question.getMarks() <= 0) {
+            return "marks must be positive";
+        }
+        question.setQuestionId(0);
+        return null;
+    }
+
+    // "option3" -> 3
+    private static int optionNumber(String column) {
+        try {
+            int number = Integer.parseInt(column.substring("option".length()).trim());
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Option columns must be named option1, option2, ...: " + column);
+    }
+
+    private static String cell(List<String> record, Map<String, Integer> columns, String name) {
+        int column = columns.get(name);
+        return column < record.size() ? record.get(column) : "";
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
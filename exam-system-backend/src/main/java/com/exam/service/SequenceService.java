@@ -0,0 +1,141 @@
+package com.exam.service;
+
+import com.exam.config.AppConfig;
+import com.exam.dao.CounterDao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+// Ids come from blocks reserved in the counters collection, so each node hands them out without a round trip.
+// Ids are unique but not gap-free: a block's unused ids are handed back on a clean shutdown only if no other
+// node reserved after it, and a crash loses the rest of the block. Low-volume sequences (users, exams) use
+// small blocks so those gaps stay small; sequence.<name>.blockSize overrides any of them.
+public class SequenceService {
+    private static final int DEFAULT_BLOCK_SIZE = 1000;
+    private static final int LOW_VOLUME_BLOCK_SIZE = 10;
+    private static final Map<String, Integer> DEFAULT_BLOCK_SIZES = Map.of(
+            "users.userId", LOW_VOLUME_BLOCK_SIZE,
+            "exams.examId", LOW_VOLUME_BLOCK_SIZE);
+
+    private final CounterDao counterDao;
+    private final int blockSize;
+    private final Map<String, Integer> blockSizes;
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    private static class Holder {
+        static final SequenceService INSTANCE = new SequenceService(new CounterDao(), DEFAULT_BLOCK_SIZE, DEFAULT_BLOCK_SIZES);
+    }
+
+    public static SequenceService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public SequenceService(CounterDao counterDao, int blockSize) {
+        this(counterDao, blockSize, Map.of());
+    }
+
+    // blockSizes: per-sequence sizes, for sequences that should not use blockSize
+    public SequenceService(CounterDao counterDao, int blockSize, Map<String, Integer> blockSizes) {
+        this.counterDao = counterDao;
+        this.blockSize = blockSize;
+        this.blockSizes = blockSizes;
+    }
+
+    // Next id for the named sequence. currentMax is only consulted the first time the
+    // sequence is used in this process, so the counter never hands out an id below existing data.
+    public int nextId(String name, IntSupplier currentMax) {
+        // Construction is cheap; the seeding round trip happens in the first refill, outside the map's bin lock
+        Sequence sequence = sequences.computeIfAbsent(name, Sequence::new);
+        return sequence.next(currentMax);
+    }
+
+    // Hands each sequence's unused ids back to the counter, for a clean shutdown. Returns how many were returned.
+    public long releaseUnused() {
+        long released = 0;
+        for (Sequence sequence : sequences.values()) {
+            try {
+                released += sequence.release();
+            } catch (RuntimeException e) {
+                System.err.println("Could not release unused ids of " + sequence.name + ": " + e.getMessage());
+            }
+        }
+        return released;
+    }
+
+    private int blockSizeFor(String name) {
+        return AppConfig.getInt("sequence." + name + ".blockSize", blockSizes.getOrDefault(name, blockSize));
+    }
+
+    // A block of ids [next, limit] reserved from the counters collection
+    private static final class Block {
+        final AtomicLong next;
+        final long limit;
+
+        Block(long first, long limit) {
+            this.next = new AtomicLong(first);
+            this.limit = limit;
+        }
+    }
+
+    private final class Sequence {
+        private final String name;
+        private final int blockSize;
+        private volatile Block current = new Block(1, 0); // empty, forces a reservation on first use
+        private final ReentrantLock refillLock = new ReentrantLock();
+        private boolean seeded; // guarded by refillLock
+
+        Sequence(String name) {
+            this.name = name;
+            this.blockSize = blockSizeFor(name);
+        }
+
+        int next(IntSupplier currentMax) {
+            while (true) {
+                Block block = current;
+                long id = block.next.getAndIncrement();
+                if (id <= block.limit) {
+                    return Math.toIntExact(id);
+                }
+                refill(block, currentMax);
+            }
+        }
+
+        // Only one thread talks to the database per exhausted block; the rest retry on the new one.
+        // A lock rather than a monitor, so a virtual thread waiting on the database does not pin its carrier.
+        private void refill(Block exhausted, IntSupplier currentMax) {
+            refillLock.lock();
+            try {
+                if (current != exhausted) {
+                    return;
+                }
+                if (!seeded) {
+                    counterDao.seed(name, currentMax.getAsInt());
+                    seeded = true;
+                }
+                long limit = counterDao.reserveBlock(name, blockSize);
+                current = new Block(limit - blockSize + 1, limit);
+            } finally {
+                refillLock.unlock();
+            }
+        }
+
+        // Closes the current block and, if it is still the newest one reserved, winds the counter back to
+        // the last id handed out. A caller after this reserves a fresh block as usual.
+        long release() {
+            refillLock.lock();
+            try {
+                Block block = current;
+                long firstUnused = block.next.getAndSet(block.limit + 1);
+                if (firstUnused > block.limit) {
+                    return 0;
+                }
+                return counterDao.release(name, block.limit, firstUnused - 1) ? block.limit - firstUnused + 1 : 0;
+            } finally {
+                refillLock.unlock();
+            }
+        }
+    }
+}
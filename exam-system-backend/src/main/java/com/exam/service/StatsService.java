@@ -0,0 +1,95 @@
+package com.exam.service;
+
+import com.exam.config.AppConfig;
+import com.exam.dao.CounterDao;
+import com.exam.dao.ExamDao;
+import com.exam.dao.QuestionDao;
+import com.exam.dao.UserDao;
+import com.google.gson.JsonObject;
+import org.bson.Document;
+
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Admin dashboard counts from the incrementally maintained stats document, behind a short TTL cache
+public class StatsService {
+    private static StatsService instance;
+
+    private final CounterDao counterDao;
+    private final UserDao userDao;
+    private final ExamDao examDao;
+    private final QuestionDao questionDao;
+    private final long ttlMs;
+    // One recount at a time. Not a monitor: the recount is several Mongo round trips on a request thread.
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private volatile String cachedJson;
+    private volatile long cachedAt;
+
+    public static synchronized StatsService getInstance() {
+        if (instance == null) {
+            instance = new StatsService();
+        }
+        return instance;
+    }
+
+    public StatsService() {
+        this.counterDao = new CounterDao();
+        this.userDao = new UserDao();
+        this.examDao = new ExamDao();
+        this.questionDao = new QuestionDao();
+        this.ttlMs = AppConfig.getLong("stats.cache.ttlMs", 5000);
+    }
+
+    public String getStatsJson() {
+        String json = cachedJson;
+        if (json != null && System.currentTimeMillis() - cachedAt < ttlMs) {
+            return json;
+        }
+
+        Document counts = counterDao.findStats();
+        if (counts == null) {
+            counts = rebuild();
+        }
+        json = toJson(counts).toString();
+        cachedJson = json;
+        cachedAt = System.currentTimeMillis();
+        return json;
+    }
+
+    // Recount from the collections: $group for users by role, countDocuments for the rest
+    public Document rebuild() {
+        rebuildLock.lock();
+        try {
+            Document counts = new Document();
+            for (Map.Entry<String, Long> entry : userDao.countByRole().entrySet()) {
+                String field = UserDao.statField(entry.getKey());
+                counts.append(field, counts.get(field, 0L) + entry.getValue());
+            }
+            counts.putIfAbsent("students", 0L);
+            counts.putIfAbsent("teachers", 0L);
+            counts.append("exams", examDao.count())
+                    .append("questions", questionDao.count());
+
+            counterDao.replaceStats(counts);
+            cachedJson = null;
+            return counts;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private static JsonObject toJson(Document counts) {
+        JsonObject stats = new JsonObject();
+        stats.addProperty("totalStudents", getCount(counts, "students"));
+        stats.addProperty("totalTeachers", getCount(counts, "teachers"));
+        stats.addProperty("totalExams", getCount(counts, "exams"));
+        stats.addProperty("totalQuestions", getCount(counts, "questions"));
+        return stats;
+    }
+
+    private static long getCount(Document counts, String field) {
+        Object value = counts.get(field);
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,146 @@
+package com.exam.service;
+
+import com.exam.config.AppConfig;
+import com.exam.model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Stateless HMAC-SHA256 bearer tokens: base64url("userId:role:expiresAt") + "." + base64url(mac).
+// Verified tokens are remembered in a small LRU so hot clients skip the MAC computation.
+public class TokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final TokenService INSTANCE = new TokenService();
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+    private final ThreadLocal<Mac> macs;
+    private final Map<String, Claims> verified;
+
+    public static TokenService getInstance() {
+        return INSTANCE;
+    }
+
+    public static final class Claims {
+        private final int userId;
+        private final String role;
+        private final long expiresAt; // epoch seconds
+
+        Claims(int userId, String role, long expiresAt) {
+            this.userId = userId;
+            this.role = role;
+            this.expiresAt = expiresAt;
+        }
+
+        public int getUserId() { return userId; }
+
+        public String getRole() { return role; }
+
+        public long getExpiresAt() { return expiresAt; }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() / 1000 >= expiresAt;
+        }
+    }
+
+    private TokenService() {
+        String secret = AppConfig.get("auth.token.secret", null);
+        byte[] secretBytes;
+        if (secret == null) {
+            // Tokens will not survive a restart or work across nodes without a configured secret
+            System.err.println("auth.token.secret is not set, using a random per-process token key");
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+        this.ttlSeconds = AppConfig.getLong("auth.token.ttlMinutes", 480) * 60;
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        int cacheSize = AppConfig.getInt("auth.token.cacheSize", 10_000);
+        this.verified = new LinkedHashMap<String, Claims>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public String issue(User user) {
+        long expiresAt = System.currentTimeMillis() / 1000 + ttlSeconds;
+        String payload = user.getUserId() + ":" + user.getRole() + ":" + expiresAt;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return encoder.encodeToString(payloadBytes) + "." + encoder.encodeToString(sign(payloadBytes));
+    }
+
+    // Returns the token's claims, or null if it is malformed, forged or expired
+    public Claims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        Claims claims;
+        synchronized (verified) {
+            claims = verified.get(token);
+        }
+        if (claims == null) {
+            claims = parse(token);
+            if (claims == null) {
+                return null;
+            }
+            synchronized (verified) {
+                verified.put(token, claims);
+            }
+        }
+        if (claims.isExpired()) {
+            synchronized (verified) {
+                verified.remove(token);
+            }
+            return null;
+        }
+        return claims;
+    }
+
+    private Claims parse(String token) {
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payloadBytes = decoder.decode(token.substring(0, dot));
+            byte[] signature = decoder.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return null;
+            }
+
+            String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                return null;
+            }
+            return new Claims(Integer.parseInt(parts[0]), parts[1], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+}
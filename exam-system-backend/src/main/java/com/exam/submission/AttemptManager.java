@@ -0,0 +1,444 @@
+package com.exam.submission;
+
+import com.exam.cache.TakenExamsCache;
+import com.exam.config.AppConfig;
+import com.exam.dao.AttemptDao;
+import com.exam.dao.ExamDao;
+import com.exam.dao.ResultDao;
+import com.exam.model.Attempt;
+import com.exam.model.Exam;
+import com.exam.model.ExamResult;
+import com.exam.service.BlueprintResolver;
+import com.exam.service.ExamService;
+import com.exam.service.ExamStatusScheduler;
+import com.exam.util.HashedWheelTimer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Attempt lifecycle: start -> IN_PROGRESS -> SUBMITTED, or EXPIRED when the timer gets there first.
+// Deadlines sit in one hashed timing wheel; overdue attempts are graded and queued in batches on the
+// expiry thread, so the wheel's own thread only ever collects keys. A submit needs a started attempt.
+public class AttemptManager {
+    private static AttemptManager instance;
+
+    public enum SubmitStatus { ACCEPTED, NOT_STARTED, ALREADY_SUBMITTED, EXPIRED, BUSY }
+
+    public static final class SubmitOutcome {
+        private final SubmitStatus status;
+        private final ExamResult result;
+
+        private SubmitOutcome(SubmitStatus status, ExamResult result) {
+            this.status = status;
+            this.result = result;
+        }
+
+        public SubmitStatus getStatus() { return status; }
+
+        public ExamResult getResult() { return result; }
+    }
+
+    private final AttemptDao attemptDao;
+    private final ExamDao examDao;
+    private final ResultDao resultDao;
+    private final ExamService examService;
+    private final SubmissionPipeline submissionPipeline;
+    private final AutosaveBuffer autosave;
+    private final TakenExamsCache takenExams = TakenExamsCache.getInstance();
+    private final BlueprintResolver blueprintResolver = new BlueprintResolver();
+
+    private final long graceMs;
+    private final int defaultDurationMinutes;
+    private final int expiryBatchSize;
+    private final HashedWheelTimer<Long> timer;
+    // Attempts running on this node, keyed like AutosaveBuffer
+    private final Map<Long, HashedWheelTimer.Timeout<Long>> active = new ConcurrentHashMap<>();
+    // Attempts that may be EXPIRED without their result queued: a failed expiry batch, a full pipeline,
+    // or a node that went down in between. Drained by recover() on its own thread, never on the timer.
+    private final Set<Long> unresolved = ConcurrentHashMap.newKeySet();
+    private final long recoveryIntervalMs;
+    private final long recoveryLookbackMs;
+    // Set before the timer starts and cleared after it stops; the timer thread reads it on every tick
+    private volatile ExecutorService expiry;
+    private ScheduledExecutorService recovery;
+
+    public static synchronized AttemptManager getInstance() {
+        if (instance == null) {
+            instance = new AttemptManager(new AttemptDao(), new ExamDao(), new ResultDao(), new ExamService(),
+                    SubmissionPipeline.getInstance(), AutosaveBuffer.getInstance());
+        }
+        return instance;
+    }
+
+    public AttemptManager(AttemptDao attemptDao, ExamDao examDao, ResultDao resultDao, ExamService examService,
+                          SubmissionPipeline submissionPipeline, AutosaveBuffer autosave) {
+        this.attemptDao = attemptDao;
+        this.examDao = examDao;
+        this.resultDao = resultDao;
+        this.examService = examService;
+        this.submissionPipeline = submissionPipeline;
+        this.autosave = autosave;
+        this.graceMs = TimeUnit.SECONDS.toMillis(AppConfig.getInt("attempt.submit.graceSeconds", 30));
+        this.defaultDurationMinutes = AppConfig.getInt("attempt.defaultDurationMinutes", 180);
+        this.expiryBatchSize = AppConfig.getInt("attempt.expiry.batchSize", 500);
+        this.timer = new HashedWheelTimer<>("attempt-timer", AppConfig.getLong("attempt.timer.tickMs", 1000),
+                AppConfig.getInt("attempt.timer.wheelSize", 512), this::expire);
+        this.recoveryIntervalMs = AppConfig.getLong("attempt.recovery.intervalMs", 5000);
+        this.recoveryLookbackMs = TimeUnit.HOURS.toMillis(AppConfig.getInt("attempt.recovery.lookbackHours", 48));
+    }
+
+    // Reschedules every attempt that was running when the node went down; overdue ones expire on the first tick.
+    // Recent expiries are rechecked too, in case the node went down before their result was queued.
+    public synchronized void start() {
+        if (recovery != null) {
+            return;
+        }
+        expiry = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "attempt-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.start();
+        List<Attempt> running = attemptDao.findInProgress();
+        for (Attempt attempt : running) {
+            schedule(attempt);
+        }
+        for (Attempt attempt : attemptDao.findExpiredSince(System.currentTimeMillis() - recoveryLookbackMs)) {
+            unresolved.add(AutosaveBuffer.key(attempt.getStudentId(), attempt.getExamId()));
+        }
+        System.out.println("Resumed " + running.size() + " exam attempts, rechecking " + unresolved.size() + " expired ones");
+
+        recovery = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "attempt-recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        recovery.scheduleWithFixedDelay(this::recover, 0, recoveryIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        timer.stop();
+        ExecutorService executor = expiry;
+        expiry = null;
+        if (executor != null) {
+            // Lets queued expiries finish; anything left is IN_PROGRESS and rescheduled on the next start
+            executor.shutdown();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (recovery != null) {
+            // Not interrupted, for the same reason as the timer: it may be mid-write
+            recovery.shutdown();
+            try {
+                recovery.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            recovery = null;
+        }
+    }
+
+    // Starts the attempt or resumes the existing one. Null if the student already has a result for this exam.
+    public Attempt startAttempt(int studentId, Exam exam) {
+        int examId = exam.getExamId();
+        if (takenExams.get(studentId, resultDao::findExamIdsByStudentId).contains(examId)) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        int minutes = exam.getDuration() > 0 ? exam.getDuration() : defaultDurationMinutes;
+        long deadline = now + TimeUnit.MINUTES.toMillis(minutes);
+        // A scheduled exam ends for everyone at the end of its window, however late they started
+        long examEnd = ExamStatusScheduler.endOf(exam);
+        if (examEnd >= 0) {
+            deadline = Math.min(deadline, examEnd);
+        }
+        // Per-student draws are fixed at the first paper fetch or at start, whichever comes first, so later
+        // bank edits cannot change a paper the student has seen. start keeps a draw that is already saved.
+        List<Integer> questionIds = exam.hasPerStudentQuestions() ? blueprintResolver.questionIdsFor(exam, studentId) : null;
+        Attempt attempt = attemptDao.start(studentId, examId, now, deadline, questionIds);
+        if (Attempt.IN_PROGRESS.equals(attempt.getState())) {
+            schedule(attempt);
+        }
+        return attempt;
+    }
+
+    // The questions this student sees. A per-student draw is saved the first time the paper is fetched,
+    // so later fetches, the attempt and grading all use it however the bank changes in between.
+    public List<Integer> questionIdsFor(int studentId, Exam exam) {
+        if (!exam.hasPerStudentQuestions()) {
+            return exam.getQuestionIds();
+        }
+        Attempt attempt = attemptDao.find(studentId, exam.getExamId());
+        if (attempt != null && attempt.getQuestionIds() != null) {
+            return attempt.getQuestionIds();
+        }
+        return attemptDao.saveDraw(studentId, exam.getExamId(), blueprintResolver.questionIdsFor(exam, studentId));
+    }
+
+    // Null for exams graded against their own cached key. Every attempt since draws were saved carries
+    // its own; redrawing is only for older ones.
+    private List<Integer> perStudentQuestionIds(Attempt attempt, int studentId, Exam exam) {
+        if (!exam.hasPerStudentQuestions()) {
+            return null;
+        }
+        if (attempt != null && attempt.getQuestionIds() != null) {
+            return attempt.getQuestionIds();
+        }
+        return blueprintResolver.questionIdsFor(exam, studentId);
+    }
+
+    public boolean isActive(int studentId, int examId) {
+        return active.containsKey(AutosaveBuffer.key(studentId, examId));
+    }
+
+    // Grades the saved attempt with the final answers on top. Only an IN_PROGRESS attempt within its
+    // deadline (and, for a scheduled exam, within the exam window) plus grace can be submitted.
+    public SubmitOutcome submit(int studentId, Exam exam, Map<Integer, Integer> submitted) throws IOException {
+        int examId = exam.getExamId();
+        if (takenExams.get(studentId, resultDao::findExamIdsByStudentId).contains(examId)) {
+            return new SubmitOutcome(SubmitStatus.ALREADY_SUBMITTED, null);
+        }
+
+        // Read the buffer before the transition: once the attempt leaves IN_PROGRESS the flusher stops writing it
+        Map<Integer, Integer> buffered = autosave.bufferedAnswers(studentId, examId);
+        ExamResult result = new ExamResult();
+        resultDao.assignResultId(result);
+        long now = System.currentTimeMillis();
+
+        // The attempt's deadline was capped at the window end when it started, but the teacher may
+        // have moved the window since
+        long examEnd = ExamStatusScheduler.endOf(exam);
+        boolean windowOpen = examEnd < 0 || now <= examEnd + graceMs;
+        Attempt attempt = windowOpen
+                ? attemptDao.submit(studentId, examId, result.getResultId(), now, now - graceMs) : null;
+        if (attempt == null) {
+            Attempt existing = attemptDao.find(studentId, examId);
+            if (existing == null || Attempt.DRAWN.equals(existing.getState())) {
+                return new SubmitOutcome(windowOpen ? SubmitStatus.NOT_STARTED : SubmitStatus.EXPIRED, null);
+            } else if (Attempt.SUBMITTED.equals(existing.getState())) {
+                return new SubmitOutcome(SubmitStatus.ALREADY_SUBMITTED, null);
+            } else {
+                // Expired, or about to be: the timer grades what was saved
+                return new SubmitOutcome(SubmitStatus.EXPIRED, null);
+            }
+        }
+
+        Map<Integer, Integer> answers = attempt.getAnswers();
+        answers.putAll(buffered);
+        if (submitted != null) {
+            answers.putAll(submitted);
+        }
+        examService.fillResult(result, exam, studentId, answers, perStudentQuestionIds(attempt, studentId, exam));
+
+        boolean queued = false;
+        try {
+            queued = submissionPipeline.submit(result);
+        } finally {
+            if (!queued) {
+                attemptDao.reopen(studentId, examId, result.getResultId());
+            }
+        }
+        if (!queued) {
+            return new SubmitOutcome(SubmitStatus.BUSY, null);
+        }
+        finish(studentId, examId);
+        return new SubmitOutcome(SubmitStatus.ACCEPTED, result);
+    }
+
+    private void schedule(Attempt attempt) {
+        Long key = AutosaveBuffer.key(attempt.getStudentId(), attempt.getExamId());
+        active.computeIfAbsent(key, k -> timer.schedule(k, attempt.getDeadline() + graceMs));
+    }
+
+    private void finish(int studentId, int examId) {
+        HashedWheelTimer.Timeout<Long> timeout = active.remove(AutosaveBuffer.key(studentId, examId));
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        autosave.discard(studentId, examId);
+        takenExams.markTaken(studentId, examId, resultDao::findExamIdsByStudentId);
+    }
+
+    // Timer thread: hands everything that went overdue on one tick to the expiry thread. The Mongo
+    // writes, grading and lookups happen there, so a slow batch never holds up the following ticks.
+    private void expire(List<Long> keys) {
+        ExecutorService executor = expiry;
+        try {
+            if (executor == null) {
+                throw new RejectedExecutionException("Attempt manager is stopped");
+            }
+            executor.execute(() -> expireAll(keys));
+        } catch (RejectedExecutionException e) {
+            unresolved.addAll(keys);
+        }
+    }
+
+    // Expiry thread. Nothing here waits on a full pipeline or retries in place; whatever cannot be
+    // finished now is left to the recovery pass.
+    private void expireAll(List<Long> keys) {
+        for (int from = 0; from < keys.size(); from += expiryBatchSize) {
+            List<Long> chunk = keys.subList(from, Math.min(keys.size(), from + expiryBatchSize));
+            try {
+                expireBatch(chunk);
+            } catch (RuntimeException e) {
+                // Some of these may already be EXPIRED; recovery grades those and re-runs the rest
+                System.err.println("Failed to expire " + chunk.size() + " attempts, leaving them to recovery: " + e.getMessage());
+                unresolved.addAll(chunk);
+            }
+            for (Long key : chunk) {
+                active.remove(key);
+            }
+        }
+    }
+
+    private void expireBatch(List<Long> keys) {
+        Map<Long, Map<Integer, Integer>> buffered = new HashMap<>();
+        List<AttemptDao.Expiry> batch = new ArrayList<>(keys.size());
+        Map<Integer, ExamResult> results = new HashMap<>();
+        for (Long key : keys) {
+            int studentId = (int) (key >>> 32);
+            int examId = key.intValue();
+            buffered.put(key, autosave.bufferedAnswers(studentId, examId));
+            ExamResult result = new ExamResult();
+            resultDao.assignResultId(result);
+            results.put(result.getResultId(), result);
+            batch.add(new AttemptDao.Expiry(studentId, examId, result.getResultId()));
+        }
+
+        List<Attempt> expired = attemptDao.expire(batch, System.currentTimeMillis());
+        // From here these are EXPIRED, so a retry of the transition would skip them. Each stays
+        // unresolved until its result is queued.
+        for (Attempt attempt : expired) {
+            unresolved.add(AutosaveBuffer.key(attempt.getStudentId(), attempt.getExamId()));
+        }
+        Map<Integer, Exam> exams = new HashMap<>();
+        int graded = 0;
+        for (Attempt attempt : expired) {
+            Long key = AutosaveBuffer.key(attempt.getStudentId(), attempt.getExamId());
+            if (gradeExpired(attempt, buffered.get(key), results.get(attempt.getResultId()), exams)) {
+                graded++;
+            }
+        }
+        if (graded > 0) {
+            System.out.println("Auto-submitted " + graded + " expired exam attempts");
+        }
+    }
+
+    // Grades an EXPIRED attempt under the resultId it reserved and offers it to the pipeline without
+    // waiting. True once queued (or nothing is left to do); false leaves it for the next recovery pass.
+    private boolean gradeExpired(Attempt attempt, Map<Integer, Integer> buffered, ExamResult result,
+                                 Map<Integer, Exam> exams) {
+        int studentId = attempt.getStudentId();
+        int examId = attempt.getExamId();
+        Long key = AutosaveBuffer.key(studentId, examId);
+        try {
+            Exam exam = exams.computeIfAbsent(examId, examDao::findById);
+            if (exam == null) {
+                finish(studentId, examId);
+                unresolved.remove(key);
+                return true;
+            }
+            Map<Integer, Integer> answers = attempt.getAnswers();
+            if (buffered != null) {
+                answers.putAll(buffered);
+            }
+            if (result == null) {
+                result = new ExamResult();
+                result.setResultId(attempt.getResultId());
+            }
+            examService.fillResult(result, exam, studentId, answers, perStudentQuestionIds(attempt, studentId, exam));
+            if (!submissionPipeline.submit(result)) {
+                return false;
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to grade expired attempt " + studentId + "/" + examId + ": " + e.getMessage());
+            return false;
+        }
+        finish(studentId, examId);
+        unresolved.remove(key);
+        return true;
+    }
+
+    // Recovery thread. Re-runs the transition for anything still IN_PROGRESS, then grades every EXPIRED
+    // attempt whose reserved resultId is neither stored nor pending. Results are keyed by resultId, so a
+    // second copy of one that did get through is dropped by the writer.
+    private void recover() {
+        if (unresolved.isEmpty()) {
+            return;
+        }
+        List<Long> keys = new ArrayList<>(unresolved);
+        for (int from = 0; from < keys.size(); from += expiryBatchSize) {
+            List<Long> chunk = keys.subList(from, Math.min(keys.size(), from + expiryBatchSize));
+            try {
+                recoverBatch(chunk);
+            } catch (RuntimeException e) {
+                System.err.println("Attempt recovery failed for " + chunk.size() + " attempts, will retry: " + e.getMessage());
+            }
+        }
+    }
+
+    private void recoverBatch(List<Long> keys) {
+        List<AttemptDao.Key> lookups = new ArrayList<>(keys.size());
+        for (Long key : keys) {
+            lookups.add(new AttemptDao.Key((int) (key >>> 32), key.intValue()));
+        }
+        long now = System.currentTimeMillis();
+        Map<Long, Attempt> attempts = new HashMap<>();
+        List<Long> overdue = new ArrayList<>();
+        List<Integer> resultIds = new ArrayList<>();
+        for (Attempt attempt : attemptDao.findAll(lookups)) {
+            Long key = AutosaveBuffer.key(attempt.getStudentId(), attempt.getExamId());
+            attempts.put(key, attempt);
+            if (Attempt.EXPIRED.equals(attempt.getState())) {
+                resultIds.add(attempt.getResultId());
+            } else if (Attempt.IN_PROGRESS.equals(attempt.getState()) && attempt.getDeadline() + graceMs <= now) {
+                overdue.add(key);
+            }
+        }
+        // The transition that failed last time; whatever moves is graded right there
+        if (!overdue.isEmpty()) {
+            expireBatch(overdue);
+        }
+        Set<Integer> stored = resultDao.findExistingResultIds(resultIds);
+
+        Map<Integer, Exam> exams = new HashMap<>();
+        int recovered = 0;
+        for (Long key : keys) {
+            Attempt attempt = attempts.get(key);
+            if (attempt == null || Attempt.SUBMITTED.equals(attempt.getState())
+                    || Attempt.DRAWN.equals(attempt.getState())) {
+                unresolved.remove(key);
+            } else if (Attempt.IN_PROGRESS.equals(attempt.getState())) {
+                if (!overdue.contains(key)) {
+                    // Not due yet; back on the timer
+                    unresolved.remove(key);
+                    schedule(attempt);
+                }
+                // Overdue ones were just handed to expireBatch; the next pass sees where they ended up
+            } else if (stored.contains(attempt.getResultId())
+                    || submissionPipeline.findPending(attempt.getResultId()) != null) {
+                finish(attempt.getStudentId(), attempt.getExamId());
+                unresolved.remove(key);
+            } else if (gradeExpired(attempt, autosave.bufferedAnswers(attempt.getStudentId(), attempt.getExamId()),
+                    null, exams)) {
+                recovered++;
+            }
+        }
+        if (recovered > 0) {
+            System.out.println("Recovered " + recovered + " expired exam attempts without a result");
+        }
+    }
+}
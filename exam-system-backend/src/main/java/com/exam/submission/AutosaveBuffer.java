@@ -0,0 +1,199 @@
+package com.exam.submission;
+
+import com.exam.config.AppConfig;
+import com.exam.dao.AttemptDao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Coalesces autosaved answers per (student, exam) and flushes them to the attempts collection
+// every autosave.flush.intervalMs in one bulk write, so a question changed ten times costs one $set.
+public class AutosaveBuffer {
+    private static AutosaveBuffer instance;
+
+    private final AttemptDao attemptDao;
+    private final long flushIntervalMs;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    // Answers not yet in Mongo. inFlight is what the flusher is writing right now.
+    private static final class Entry {
+        final int studentId;
+        final int examId;
+        Map<Integer, Integer> dirty = new HashMap<>();
+        Map<Integer, Integer> inFlight = new HashMap<>();
+        boolean removed;
+
+        Entry(int studentId, int examId) {
+            this.studentId = studentId;
+            this.examId = examId;
+        }
+    }
+
+    public static synchronized AutosaveBuffer getInstance() {
+        if (instance == null) {
+            instance = new AutosaveBuffer(new AttemptDao());
+        }
+        return instance;
+    }
+
+    public AutosaveBuffer(AttemptDao attemptDao) {
+        this.attemptDao = attemptDao;
+        this.flushIntervalMs = AppConfig.getLong("autosave.flush.intervalMs", 3000);
+        this.batchSize = AppConfig.getInt("autosave.batch.size", 500);
+        this.maxAttempts = AppConfig.getInt("autosave.maxAttempts", 50000);
+    }
+
+    public synchronized void start() {
+        if (flusher != null) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "autosave-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Returns false when too many attempts are buffered; the caller should ask the client to retry
+    public boolean record(int studentId, int examId, Map<Integer, Integer> answers) {
+        Long key = key(studentId, examId);
+        while (true) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                if (entries.size() >= maxAttempts) {
+                    return false;
+                }
+                entry = entries.computeIfAbsent(key, k -> new Entry(studentId, examId));
+            }
+            synchronized (entry) {
+                // The flusher dropped this entry after it went idle; start a fresh one
+                if (entry.removed) {
+                    continue;
+                }
+                for (Map.Entry<Integer, Integer> answer : answers.entrySet()) {
+                    if (answer.getKey() != null) {
+                        // null clears an answer; stored as -1, which never matches a correct option
+                        entry.dirty.put(answer.getKey(), answer.getValue() != null ? answer.getValue() : -1);
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    // Answers not confirmed in Mongo yet, including any the flusher is writing right now; newest wins.
+    // Read this before the attempt itself so nothing falls between the two.
+    public Map<Integer, Integer> bufferedAnswers(int studentId, int examId) {
+        Entry entry = entries.get(key(studentId, examId));
+        Map<Integer, Integer> buffered = new HashMap<>();
+        if (entry != null) {
+            synchronized (entry) {
+                buffered.putAll(entry.inFlight);
+                buffered.putAll(entry.dirty);
+            }
+        }
+        return buffered;
+    }
+
+    // Forget buffered answers once the attempt is submitted
+    public void discard(int studentId, int examId) {
+        Entry entry = entries.remove(key(studentId, examId));
+        if (entry != null) {
+            synchronized (entry) {
+                entry.removed = true;
+                entry.dirty.clear();
+            }
+        }
+    }
+
+    public int getBufferedAttempts() {
+        return entries.size();
+    }
+
+    // Writes out everything still buffered
+    public void stop() {
+        ScheduledExecutorService executor;
+        synchronized (this) {
+            executor = flusher;
+            flusher = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushSafely();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Autosave flush failed: " + e.getMessage());
+        }
+    }
+
+    private synchronized void flush() {
+        List<Entry> batchEntries = new ArrayList<>(batchSize);
+        List<AttemptDao.AnswerDelta> batch = new ArrayList<>(batchSize);
+        for (Entry entry : entries.values()) {
+            synchronized (entry) {
+                if (entry.dirty.isEmpty()) {
+                    // Nothing changed for a whole interval; stop tracking it
+                    entry.removed = true;
+                    entries.remove(key(entry.studentId, entry.examId), entry);
+                    continue;
+                }
+                Map<Integer, Integer> changed = entry.dirty;
+                entry.inFlight = changed;
+                entry.dirty = new HashMap<>();
+                batch.add(new AttemptDao.AnswerDelta(entry.studentId, entry.examId, changed));
+            }
+            batchEntries.add(entry);
+            if (batch.size() == batchSize) {
+                write(batchEntries, batch);
+                batchEntries.clear();
+                batch.clear();
+            }
+        }
+        write(batchEntries, batch);
+    }
+
+    private void write(List<Entry> batchEntries, List<AttemptDao.AnswerDelta> batch) {
+        boolean written = false;
+        try {
+            attemptDao.saveAnswers(batch);
+            written = true;
+        } finally {
+            for (Entry entry : batchEntries) {
+                synchronized (entry) {
+                    if (!written) {
+                        // Put them back under anything newer so the next flush retries
+                        Map<Integer, Integer> retry = entry.inFlight;
+                        retry.putAll(entry.dirty);
+                        entry.dirty = retry;
+                    }
+                    entry.inFlight = new HashMap<>();
+                }
+            }
+        }
+    }
+
+    static Long key(int studentId, int examId) {
+        return ((long) studentId << 32) | (examId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,51 @@
+package com.exam.submission;
+
+import com.exam.model.ExamResult;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+// JSON Lines file of results Mongo refused for good (e.g. failed document validation). Moving them here lets
+// the writer and the journal move on; each line keeps the reason and the result in the journal's format.
+// Only the result writer appends (and the journal replay before it starts), and rarely, so every append
+// opens, writes and fsyncs on its own, and there is no lock.
+public class DeadLetterFile {
+    private final Path path;
+    private volatile long count;
+    private volatile String lastReason;
+
+    public DeadLetterFile(Path path) {
+        this.path = path;
+    }
+
+    public void append(ExamResult result, String reason) throws IOException {
+        JsonObject line = new JsonObject();
+        line.addProperty("deadLetteredAt", Instant.now().toString());
+        line.addProperty("reason", reason);
+        line.add("result", ResultJournal.toJson(result));
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        count++;
+        lastReason = reason;
+    }
+
+    public JsonObject getStats() {
+        JsonObject json = new JsonObject();
+        json.addProperty("path", path.toString());
+        json.addProperty("count", count);
+        json.addProperty("lastReason", lastReason);
+        return json;
+    }
+}
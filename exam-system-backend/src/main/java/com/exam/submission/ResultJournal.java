@@ -0,0 +1,317 @@
+package com.exam.submission;
+
+import com.exam.model.ExamResult;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Append-only JSON Lines journal of accepted submissions that are not yet in Mongo, kept as numbered
+// segment files next to the configured path. Appends are group-committed: whoever finds the disk idle
+// writes and fsyncs everything queued so far in one go, and every appender in that group returns together.
+// A segment is deleted once it has been rolled over and every entry in it has been reported persisted.
+public class ResultJournal {
+    private final Path path;
+    private final long segmentBytes;
+    private static final Gson gson = new Gson();
+
+    // Guards everything below. The file work itself runs outside it while busy is set,
+    // so appenders keep joining the next group during an fsync.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition idle = lock.newCondition();
+    private boolean busy;
+    private FileChannel channel;
+    private long segment; // the one being appended to
+    private Group open = new Group();
+    // Entries written but not yet reported persisted, per segment
+    private final Map<Long, Integer> outstanding = new HashMap<>();
+    private long appends;
+    private long groupCommits;
+
+    private static final class Group {
+        final List<ByteBuffer> lines = new ArrayList<>();
+        boolean done;
+        long segment;
+        IOException failure;
+    }
+
+    public ResultJournal(Path path, long segmentBytes) {
+        this.path = path;
+        this.segmentBytes = segmentBytes;
+    }
+
+    // Starts a new segment after any left by a previous run; those stay for readRecovered()
+    public void open() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                return;
+            }
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            long last = 0;
+            for (long existing : segmentsOnDisk()) {
+                last = Math.max(last, existing);
+            }
+            segment = last + 1;
+            channel = openSegment(segment);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns once the entry is on disk, with the segment it went into (see persisted)
+    public long append(ExamResult result) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((gson.toJson(toJson(result)) + "\n").getBytes(StandardCharsets.UTF_8));
+        lock.lock();
+        try {
+            Group group = open;
+            group.lines.add(line);
+            while (!group.done) {
+                if (busy) {
+                    idle.awaitUninterruptibly();
+                } else {
+                    // Not done and nobody flushing means our group is still the open one
+                    flushOpenGroup();
+                }
+            }
+            if (group.failure != null) {
+                throw new IOException("Journal write failed", group.failure);
+            }
+            return group.segment;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The writer stored count entries of this segment in Mongo. A rolled-over segment with none left is deleted.
+    public void persisted(long entrySegment, int count) throws IOException {
+        lock.lock();
+        try {
+            Integer left = outstanding.get(entrySegment);
+            if (left == null) {
+                return;
+            }
+            if (left > count) {
+                outstanding.put(entrySegment, left - count);
+                return;
+            }
+            outstanding.remove(entrySegment);
+            if (entrySegment != segment) {
+                Files.deleteIfExists(segmentPath(entrySegment));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Entries left over from a previous run (every segment before the one open() started).
+    // A torn last line from a crash mid-append is skipped.
+    public List<ExamResult> readRecovered() throws IOException {
+        List<ExamResult> results = new ArrayList<>();
+        for (Path file : recoveredFiles()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        results.add(fromJson(line));
+                    } catch (RuntimeException e) {
+                        System.err.println("Skipping unreadable journal entry in " + file + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    // Called once the recovered entries are known to be in Mongo
+    public void discardRecovered() throws IOException {
+        for (Path file : recoveredFiles()) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            while (busy) {
+                idle.awaitUninterruptibly();
+            }
+            if (channel != null) {
+                channel.close();
+                channel = null;
+                // Everything made it to Mongo, so there is nothing to replay next time
+                if (!outstanding.containsKey(segment)) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public JsonObject getStats() {
+        lock.lock();
+        try {
+            JsonObject json = new JsonObject();
+            json.addProperty("segment", segment);
+            json.addProperty("segmentsWithPending", outstanding.size());
+            json.addProperty("appends", appends);
+            json.addProperty("groupCommits", groupCommits);
+            json.addProperty("avgGroupSize", groupCommits > 0 ? (double) appends / groupCommits : 0.0);
+            return json;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The answer sheet is transient for Gson (clients never see it), so it is carried here explicitly.
+    // Also the format of DeadLetterFile, so a dead-lettered result can be fixed up and replayed by hand.
+    static JsonObject toJson(ExamResult result) {
+        JsonObject json = gson.toJsonTree(result).getAsJsonObject();
+        if (result.getAnswerSheet() != null) {
+            json.addProperty("answerSheet", Base64.getEncoder().encodeToString(result.getAnswerSheet()));
+        }
+        return json;
+    }
+
+    private ExamResult fromJson(String line) {
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        JsonElement sheet = json.remove("answerSheet");
+        ExamResult result = gson.fromJson(json, ExamResult.class);
+        if (sheet != null && sheet.isJsonPrimitive()) {
+            result.setAnswerSheet(Base64.getDecoder().decode(sheet.getAsString()));
+        } else if (sheet != null && sheet.isJsonArray()) {
+            // Written before the field was transient: Gson's plain number array
+            result.setAnswerSheet(gson.fromJson(sheet, byte[].class));
+        }
+        return result;
+    }
+
+    // Lock held and not busy on entry and exit; released around the write + fsync
+    private void flushOpenGroup() {
+        Group batch = open;
+        open = new Group();
+        busy = true;
+        FileChannel target = channel;
+        long targetSegment = segment;
+        FileChannel next = null;
+        IOException failure = null;
+        lock.unlock();
+        try {
+            if (target == null) {
+                throw new IOException("Journal is not open");
+            }
+            long start = target.size();
+            ByteBuffer[] buffers = batch.lines.toArray(new ByteBuffer[0]);
+            try {
+                while (buffers[buffers.length - 1].hasRemaining()) {
+                    target.write(buffers);
+                }
+                target.force(false);
+            } catch (IOException e) {
+                // Drop the partial group so the next one does not start mid-line
+                target.truncate(start);
+                throw e;
+            }
+            if (target.size() >= segmentBytes) {
+                next = openSegment(targetSegment + 1);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            // Still has to reach the bookkeeping below, or busy would stay set for good
+            failure = new IOException(e);
+        } finally {
+            lock.lock();
+        }
+
+        if (failure == null) {
+            outstanding.merge(targetSegment, batch.lines.size(), Integer::sum);
+            appends += batch.lines.size();
+            groupCommits++;
+        }
+        if (next != null) {
+            channel = next;
+            segment = targetSegment + 1;
+            try {
+                target.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close journal segment " + targetSegment + ": " + e.getMessage());
+            }
+        }
+        batch.segment = targetSegment;
+        batch.failure = failure;
+        batch.done = true;
+        busy = false;
+        idle.signalAll();
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private Path segmentPath(long number) {
+        return path.resolveSibling(path.getFileName() + "." + number);
+    }
+
+    private List<Long> segmentsOnDisk() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        Path directory = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (Path file : files) {
+                try {
+                    numbers.add(Long.parseLong(file.getFileName().toString().substring(prefix.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    // The single-file journal of earlier versions first, then older segments in order
+    private List<Path> recoveredFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.exists(path)) {
+            files.add(path);
+        }
+        long current;
+        lock.lock();
+        try {
+            current = segment;
+        } finally {
+            lock.unlock();
+        }
+        for (long number : segmentsOnDisk()) {
+            if (number < current) {
+                files.add(segmentPath(number));
+            }
+        }
+        return files;
+    }
+}
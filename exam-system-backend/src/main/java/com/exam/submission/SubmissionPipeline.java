@@ -0,0 +1,342 @@
+package com.exam.submission;
+
+import com.exam.config.AppConfig;
+import com.exam.dao.ResultDao;
+import com.exam.model.ExamResult;
+import com.google.gson.JsonObject;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.MongoWriteConcernException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write-behind path for exam results: journal, enqueue, and let one writer thread batch them into insertMany.
+// The writer retries only errors that can clear up by themselves; a result Mongo refuses for good goes to
+// the dead-letter file next to the journal, so one bad row cannot stall every submission behind it.
+public class SubmissionPipeline {
+    private static SubmissionPipeline instance;
+
+    private final ResultDao resultDao;
+    // Null until submission.journal.dir (or .path) is configured; start() refuses to run without it.
+    // Never under java.io.tmpdir, which is often cleared on reboot.
+    private final Path journalPath;
+    private final ResultJournal journal;
+    private final DeadLetterFile deadLetters;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int retryAfterSeconds;
+
+    // One permit per queued-or-in-flight result; released only once it is in Mongo
+    private final Semaphore capacity;
+    private final BlockingQueue<ExamResult> queue = new LinkedBlockingQueue<>();
+    private final Map<Integer, ExamResult> pending = new ConcurrentHashMap<>();
+    // Journal segment each pending result was written to, reported back once it is in Mongo
+    private final Map<Integer, Long> journalSegments = new ConcurrentHashMap<>();
+    private final AtomicLong journalFailures = new AtomicLong();
+    private volatile String lastJournalFailure;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public static synchronized SubmissionPipeline getInstance() {
+        if (instance == null) {
+            instance = new SubmissionPipeline(new ResultDao());
+        }
+        return instance;
+    }
+
+    public SubmissionPipeline(ResultDao resultDao) {
+        this.resultDao = resultDao;
+        String journalFile = AppConfig.get("submission.journal.path", null);
+        String journalDir = AppConfig.get("submission.journal.dir", null);
+        this.journalPath = journalFile != null ? Paths.get(journalFile)
+                : journalDir != null ? Paths.get(journalDir, "exam-results.journal") : null;
+        Path path = journalPath != null ? journalPath : Paths.get("exam-results.journal");
+        this.journal = new ResultJournal(path, AppConfig.getLong("submission.journal.segmentBytes", 16L * 1024 * 1024));
+        this.deadLetters = new DeadLetterFile(path.resolveSibling(path.getFileName() + ".dead"));
+        this.capacity = new Semaphore(AppConfig.getInt("submission.queue.capacity", 5000));
+        this.batchSize = AppConfig.getInt("submission.batch.size", 200);
+        this.flushIntervalMs = AppConfig.getLong("submission.flush.intervalMs", 250);
+        this.retryAfterSeconds = AppConfig.getInt("submission.retryAfterSeconds", 5);
+    }
+
+    // Replays whatever the previous run journaled but did not persist, then starts the writer
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        if (journalPath == null) {
+            throw new IOException("submission.journal.dir is not set; accepted results are journaled there until"
+                    + " they reach Mongo, so it must be a directory that survives a restart");
+        }
+        journal.open();
+        replayJournal();
+
+        running = true;
+        writer = new Thread(this::runWriter, "result-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Returns false when the queue is full, or the pipeline is not running (not started yet or shutting down);
+    // the caller should answer 503 with getRetryAfterSeconds(). Never starts the pipeline itself, so a
+    // request arriving during shutdown cannot bring the writer back.
+    public boolean submit(ExamResult result) throws IOException {
+        if (!running) {
+            return false;
+        }
+        if (!capacity.tryAcquire()) {
+            return false;
+        }
+        try {
+            resultDao.assignResultId(result);
+            long segment = journal.append(result);
+            pending.put(result.getResultId(), result);
+            journalSegments.put(result.getResultId(), segment);
+        } catch (IOException e) {
+            capacity.release();
+            journalFailed("append", e);
+            throw e;
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+        queue.add(result);
+        return true;
+    }
+
+    // Accepted results that are not in Mongo yet, so a student can open their result right after submitting
+    public ExamResult findPending(int resultId) {
+        return pending.get(resultId);
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    public JsonObject getStats() {
+        JsonObject json = new JsonObject();
+        json.addProperty("queueDepth", pending.size());
+        json.addProperty("availableCapacity", capacity.availablePermits());
+        json.addProperty("journalFailures", journalFailures.get());
+        json.addProperty("lastJournalFailure", lastJournalFailure);
+        json.add("journal", journal.getStats());
+        json.add("deadLetters", deadLetters.getStats());
+        return json;
+    }
+
+    // Stops accepting work and drains the queue. Anything that still cannot be written stays in the journal.
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = writer;
+            writer = null;
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            journalFailed("close", e);
+        }
+    }
+
+    private void replayJournal() throws IOException {
+        List<ExamResult> journaled = journal.readRecovered();
+        if (!journaled.isEmpty()) {
+            List<Integer> ids = new ArrayList<>(journaled.size());
+            for (ExamResult result : journaled) {
+                ids.add(result.getResultId());
+            }
+            Set<Integer> existing = resultDao.findExistingResultIds(ids);
+            List<ExamResult> missing = new ArrayList<>();
+            for (ExamResult result : journaled) {
+                if (!existing.contains(result.getResultId())) {
+                    missing.add(result);
+                }
+            }
+            Map<Integer, String> rejected = resultDao.saveResults(missing);
+            for (Map.Entry<Integer, String> entry : rejected.entrySet()) {
+                // Before discardRecovered(), so a failure here leaves the journal in place for the next start
+                deadLetters.append(missing.get(entry.getKey()), entry.getValue());
+            }
+            System.out.println("Replayed " + (missing.size() - rejected.size()) + " journaled exam results"
+                    + (rejected.isEmpty() ? "" : ", dead-lettered " + rejected.size()));
+        }
+        journal.discardRecovered();
+    }
+
+    private void runWriter() {
+        List<ExamResult> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ExamResult first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Flush when the batch is full or flushIntervalMs after its first entry, whichever comes first
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    ExamResult next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (!write(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // Stores the batch, dead-letters what Mongo will never take, and releases both. False only on shutdown
+    // with the batch unwritten; the journal still has it.
+    private boolean write(List<ExamResult> batch) {
+        Map<Integer, String> rejected = store(batch);
+        if (rejected == null) {
+            return false;
+        }
+
+        List<ExamResult> done = new ArrayList<>(batch.size());
+        for (ExamResult result : batch) {
+            String reason = rejected.get(result.getResultId());
+            if (reason != null) {
+                System.err.println("Exam result " + result.getResultId() + " was refused by the database: " + reason);
+                try {
+                    deadLetters.append(result, reason);
+                } catch (IOException e) {
+                    // Stays pending and in the journal, so the next start replays it instead of losing it
+                    journalFailed("dead-letter", e);
+                    continue;
+                }
+            }
+            done.add(result);
+        }
+
+        Map<Long, Integer> persisted = new HashMap<>();
+        for (ExamResult result : done) {
+            pending.remove(result.getResultId());
+            Long segment = journalSegments.remove(result.getResultId());
+            if (segment != null) {
+                persisted.merge(segment, 1, Integer::sum);
+            }
+        }
+        // Lets the journal drop segments that are fully in Mongo, so it stays small under steady load
+        for (Map.Entry<Long, Integer> entry : persisted.entrySet()) {
+            try {
+                journal.persisted(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                journalFailed("compact", e);
+            }
+        }
+        capacity.release(done.size());
+        return true;
+    }
+
+    // Writes the batch, backing off and retrying while the failure is transient. Returns the resultIds
+    // refused for good with the reason, or null if shutdown came first.
+    private Map<Integer, String> store(List<ExamResult> batch) {
+        long backoffMs = 100;
+        while (true) {
+            try {
+                Map<Integer, String> rejected = new HashMap<>();
+                for (Map.Entry<Integer, String> entry : resultDao.saveResults(batch).entrySet()) {
+                    rejected.put(batch.get(entry.getKey()).getResultId(), entry.getValue());
+                }
+                return rejected;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    if (batch.size() == 1) {
+                        return Map.of(batch.get(0).getResultId(), String.valueOf(e));
+                    }
+                    // One bad row can fail the whole call (one that cannot be encoded, say); write them
+                    // one at a time so only that row is refused
+                    Map<Integer, String> rejected = new HashMap<>();
+                    for (ExamResult result : batch) {
+                        Map<Integer, String> single = store(List.of(result));
+                        if (single == null) {
+                            return null;
+                        }
+                        rejected.putAll(single);
+                    }
+                    return rejected;
+                }
+                System.err.println("Failed to write " + batch.size() + " exam results, retrying: " + e.getMessage());
+                if (!running) {
+                    return null;
+                }
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                backoffMs = Math.min(backoffMs * 2, 5000);
+            }
+        }
+    }
+
+    // Network trouble, elections, timeouts and write concern failures clear up on their own; anything else
+    // (validation, encoding, a bad document) fails the same way every time
+    private static boolean isTransient(RuntimeException e) {
+        if (e instanceof MongoBulkWriteException) {
+            return ((MongoBulkWriteException) e).getWriteConcernError() != null;
+        }
+        if (e instanceof MongoSocketException || e instanceof MongoTimeoutException
+                || e instanceof MongoNotPrimaryException || e instanceof MongoNodeIsRecoveringException
+                || e instanceof MongoExecutionTimeoutException || e instanceof MongoWriteConcernException) {
+            return true;
+        }
+        if (e instanceof MongoException) {
+            MongoException mongo = (MongoException) e;
+            return mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+                    || mongo.hasErrorLabel("RetryableWriteError");
+        }
+        return false;
+    }
+
+    // Counted and kept for GET /api/admin/submissions as well as logged, since a journal that cannot
+    // be written or compacted puts accepted results at risk
+    private void journalFailed(String operation, IOException e) {
+        journalFailures.incrementAndGet();
+        lastJournalFailure = operation + ": " + e.getMessage();
+        System.err.println("Result journal " + operation + " failed: " + e.getMessage());
+        e.printStackTrace();
+    }
+}
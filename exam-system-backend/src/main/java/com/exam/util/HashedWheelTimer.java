@@ -0,0 +1,169 @@
+package com.exam.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Hashed timing wheel: one thread and one small object per timeout, however many are pending.
+// Everything that expires on a tick is handed to the callback as one list.
+public final class HashedWheelTimer<T> {
+
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadlineMillis;
+        private long rounds;
+        private volatile boolean cancelled;
+
+        private Timeout(T item, long deadlineMillis) {
+            this.item = item;
+            this.deadlineMillis = deadlineMillis;
+        }
+
+        public T getItem() { return item; }
+
+        public long getDeadlineMillis() { return deadlineMillis; }
+
+        // Lazy: the entry is dropped the next time its bucket comes round
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final String name;
+    private final long tickMs;
+    private final int mask;
+    private final List<List<Timeout<T>>> wheel;
+    private final Queue<Timeout<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Consumer<List<T>> onExpired;
+
+    private volatile boolean running;
+    private Thread worker;
+    private long startMillis;
+    private long tick; // next tick to process, worker thread only
+
+    public HashedWheelTimer(String name, long tickMs, int wheelSize, Consumer<List<T>> onExpired) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMs and wheelSize must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1; // round up to a power of two
+        this.name = name;
+        this.tickMs = tickMs;
+        this.mask = Math.max(size, 1) - 1;
+        this.wheel = new ArrayList<>(mask + 1);
+        for (int i = 0; i <= mask; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.onExpired = onExpired;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        startMillis = System.currentTimeMillis();
+        tick = 0;
+        running = true;
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    // Fires on the first tick at or after deadlineMillis; past deadlines fire on the next tick
+    public Timeout<T> schedule(T item, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(item, deadlineMillis);
+        pending.incrementAndGet();
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = worker;
+            worker = null;
+        }
+        if (thread != null) {
+            // Not interrupted: the callback may be in the middle of a database write
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            // Ticks are derived from the clock, so a slow callback delays expiry but never loses a tick
+            long target = (System.currentTimeMillis() - startMillis) / tickMs;
+            List<T> expired = new ArrayList<>();
+            while (tick <= target) {
+                transferIncoming();
+                expireBucket(wheel.get((int) (tick & mask)), expired);
+                tick++;
+            }
+            if (!expired.isEmpty()) {
+                try {
+                    onExpired.accept(expired);
+                } catch (RuntimeException e) {
+                    System.err.println("Timer " + name + " callback failed: " + e.getMessage());
+                }
+            }
+
+            long sleepMs = startMillis + tick * tickMs - System.currentTimeMillis();
+            if (sleepMs > 0) {
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void transferIncoming() {
+        Timeout<T> timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.cancelled) {
+                pending.decrementAndGet();
+                continue;
+            }
+            long deadlineTick = Math.max(ceilDiv(timeout.deadlineMillis - startMillis, tickMs), tick);
+            timeout.rounds = (deadlineTick - tick) / wheel.size();
+            wheel.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private void expireBucket(List<Timeout<T>> bucket, List<T> expired) {
+        int i = 0;
+        while (i < bucket.size()) {
+            Timeout<T> timeout = bucket.get(i);
+            if (timeout.cancelled || timeout.rounds <= 0) {
+                // Swap-remove; order within a bucket does not matter
+                bucket.set(i, bucket.get(bucket.size() - 1));
+                bucket.remove(bucket.size() - 1);
+                pending.decrementAndGet();
+                if (!timeout.cancelled) {
+                    expired.add(timeout.item);
+                }
+            } else {
+                timeout.rounds--;
+                i++;
+            }
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
@@ -1,9 +1,15 @@
 package com.exam.util;
 
+import com.exam.model.Page;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 
 public class JsonUtils {
     private static final Gson gson = new Gson();
@@ -24,6 +30,46 @@ public class JsonUtils {
         resp.getWriter().write(gson.toJson(json));
     }
     
+    // Writes the cursor as a JSON array element by element, so memory stays bounded by the driver batch size
+    public static <T> void streamArray(HttpServletResponse resp, MongoIterable<T> items) throws IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        JsonWriter writer = new JsonWriter(resp.getWriter());
+        writer.beginArray();
+        try (MongoCursor<T> cursor = items.iterator()) {
+            while (cursor.hasNext()) {
+                T item = cursor.next();
+                gson.toJson(item, item.getClass(), writer);
+            }
+        }
+        writer.endArray();
+        writer.flush();
+    }
+    
+    // Writes a page as {"items": [...], "nextPageToken": ...}, keeping only the requested fields of each item
+    public static void sendPage(HttpServletResponse resp, Page<?> page, List<String> fields) throws IOException {
+        JsonArray items = new JsonArray();
+        for (Object item : page.getItems()) {
+            JsonObject tree = gson.toJsonTree(item).getAsJsonObject();
+            if (fields != null) {
+                JsonObject projected = new JsonObject();
+                for (String field : fields) {
+                    if (tree.has(field)) {
+                        projected.add(field, tree.get(field));
+                    }
+                }
+                tree = projected;
+            }
+            items.add(tree);
+        }
+
+        JsonObject json = new JsonObject();
+        json.add("items", items);
+        json.addProperty("nextPageToken", page.getNextPageToken());
+        resp.setContentType("application/json");
+        resp.getWriter().write(gson.toJson(json));
+    }
+    
     public static <T> T parseBody(String json, Class<T> classOfT) {
         return gson.fromJson(json, classOfT);
     }
@@ -0,0 +1,93 @@
+package com.exam.util;
+
+import com.exam.config.AppConfig;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+// Keyset pagination parameters: ?limit=&pageToken=&fields=a,b,c
+// The page token is an opaque encoding of the last id on the previous page.
+public class PageRequest {
+    private static final int DEFAULT_PAGE_SIZE = AppConfig.getInt("api.page.defaultSize", 50);
+    private static final int MAX_PAGE_SIZE = AppConfig.getInt("api.page.maxSize", 500);
+    private static final String TOKEN_PREFIX = "after:";
+
+    private final int afterId;
+    private final int limit;
+    private final List<String> fields;
+
+    private PageRequest(int afterId, int limit, List<String> fields) {
+        this.afterId = afterId;
+        this.limit = limit;
+        this.fields = fields;
+    }
+
+    // True when the client asked for any paging, projection or filter parameter
+    public static boolean isRequested(HttpServletRequest req, String... filterParams) {
+        if (req.getParameter("limit") != null || req.getParameter("pageToken") != null || req.getParameter("fields") != null) {
+            return true;
+        }
+        for (String param : filterParams) {
+            if (req.getParameter(param) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Throws IllegalArgumentException for a bad limit, token or unknown field
+    public static PageRequest from(HttpServletRequest req, Set<String> allowedFields) {
+        int limit = DEFAULT_PAGE_SIZE;
+        String limitParam = req.getParameter("limit");
+        if (limitParam != null) {
+            limit = Integer.parseInt(limitParam);
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            limit = Math.min(limit, MAX_PAGE_SIZE);
+        }
+
+        String token = req.getParameter("pageToken");
+        int afterId = token != null && !token.isEmpty() ? decodeToken(token) : 0;
+
+        List<String> fields = null;
+        String fieldsParam = req.getParameter("fields");
+        if (fieldsParam != null && !fieldsParam.trim().isEmpty()) {
+            fields = new ArrayList<>();
+            for (String field : fieldsParam.split(",")) {
+                String name = field.trim();
+                if (!allowedFields.contains(name)) {
+                    throw new IllegalArgumentException("Unknown field: " + name);
+                }
+                fields.add(name);
+            }
+            fields = Collections.unmodifiableList(fields);
+        }
+        return new PageRequest(afterId, limit, fields);
+    }
+
+    public static String encodeToken(int lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((TOKEN_PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeToken(String token) {
+        String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        if (!decoded.startsWith(TOKEN_PREFIX)) {
+            throw new IllegalArgumentException("Invalid page token");
+        }
+        return Integer.parseInt(decoded.substring(TOKEN_PREFIX.length()));
+    }
+
+    public int getAfterId() { return afterId; }
+
+    public int getLimit() { return limit; }
+
+    // Requested fields, or null for all of them
+    public List<String> getFields() { return fields; }
+}
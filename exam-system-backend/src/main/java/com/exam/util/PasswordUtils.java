@@ -1,19 +1,41 @@
 package com.exam.util;
 
+import com.exam.config.AppConfig;
 import org.mindrot.jbcrypt.BCrypt;
 
 public class PasswordUtils {
+
+    // Work factor for new hashes; stored hashes with a lower cost are upgraded on login
+    private static final int COST = AppConfig.getInt("auth.bcrypt.cost", 10);
     
     // Hash a password for the first time
     public static String hashPassword(String plainTextPassword) {
-        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt());
+        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt(COST));
     }
 
     // Check that a plain text password matches a previously hashed one
     public static boolean checkPassword(String plainTextPassword, String hashedPassword) {
-        if (hashedPassword == null || !hashedPassword.startsWith("$2a$")) {
+        if (!isBcryptHash(hashedPassword)) {
             return false;
         }
-        return BCrypt.checkpw(plainTextPassword, hashedPassword);
+        // $2b$ and $2y$ hash identically to $2a$ for our inputs; jBCrypt only understands the $2a$ prefix
+        return BCrypt.checkpw(plainTextPassword, "$2a$" + hashedPassword.substring(4));
+    }
+
+    public static boolean needsRehash(String hashedPassword) {
+        return !isBcryptHash(hashedPassword) || getCost(hashedPassword) < COST;
+    }
+
+    public static int getCost(String hashedPassword) {
+        return Integer.parseInt(hashedPassword.substring(4, 6));
+    }
+
+    private static boolean isBcryptHash(String hashedPassword) {
+        return hashedPassword != null
+                && hashedPassword.length() == 60
+                && (hashedPassword.startsWith("$2a$") || hashedPassword.startsWith("$2b$") || hashedPassword.startsWith("$2y$"))
+                && Character.isDigit(hashedPassword.charAt(4))
+                && Character.isDigit(hashedPassword.charAt(5))
+                && hashedPassword.charAt(6) == '$';
     }
 }
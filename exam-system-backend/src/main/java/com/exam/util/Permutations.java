@@ -0,0 +1,40 @@
+package com.exam.util;
+
+// Deterministic, allocation-free permutations for per-student question and option ordering.
+// The same (examId, studentId, salt) always yields the same order, so nothing needs to be stored.
+public final class Permutations {
+
+    private Permutations() {}
+
+    public static long seed(int examId, int studentId) {
+        return mix(((long) examId << 32) ^ (studentId & 0xFFFFFFFFL));
+    }
+
+    // Fills out[0..n) with a permutation of 0..n-1. Use the questionId as salt for option order, 0 for question order.
+    public static void fill(long seed, int salt, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            out[i] = i;
+        }
+        long state = mix(seed ^ (salt * 0x9E3779B97F4A7C15L));
+        // Fisher-Yates, driven by a SplitMix64 sequence
+        for (int i = n - 1; i > 0; i--) {
+            state += 0x9E3779B97F4A7C15L;
+            int j = (int) Long.remainderUnsigned(mix(state), i + 1);
+            int tmp = out[i];
+            out[i] = out[j];
+            out[j] = tmp;
+        }
+    }
+
+    // Canonical index of the element shown at displayIndex; scratch must hold at least n ints
+    public static int apply(long seed, int salt, int n, int displayIndex, int[] scratch) {
+        fill(seed, salt, scratch, n);
+        return scratch[displayIndex];
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,147 @@
+package com.exam.harness;
+
+import com.exam.codec.ModelCodecs;
+import com.exam.model.ExamResult;
+import com.exam.model.Question;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Decode cost of the model codecs against the Document-then-map path the DAOs used before: the same BSON
+// bytes, as they arrive off the wire, decoded either into a Document and copied field by field into the
+// model (the old mapToQuestion / mapToResult, kept below) or straight into the model by its codec.
+// Reports documents per second and bytes allocated per document. Built as in ConcurrencyHarness, then:
+//
+//   java -cp "target/harness:lib/*" com.exam.harness.CodecBenchmark [rounds, default 5]
+public class CodecBenchmark {
+    private static final int DOCUMENTS = 20_000;
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        List<Question> questions = new ArrayList<>();
+        List<ExamResult> results = new ArrayList<>();
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            questions.add(question(i));
+            results.add(result(i));
+        }
+        List<byte[]> questionBytes = encode(Question.class, questions);
+        List<byte[]> resultBytes = encode(ExamResult.class, results);
+
+        Codec<Document> documents = ModelCodecs.REGISTRY.get(Document.class);
+        Codec<Question> questionCodec = ModelCodecs.REGISTRY.get(Question.class);
+        Codec<ExamResult> resultCodec = ModelCodecs.REGISTRY.get(ExamResult.class);
+
+        System.out.printf("%-12s %-16s %14s %16s%n", "model", "decoder", "docs/s", "bytes/doc");
+        for (int round = 0; round <= rounds; round++) {
+            // Round 0 only warms the JIT up
+            boolean report = round == rounds;
+            run(report, "Question", "Document + map", questionBytes,
+                    bytes -> mapToQuestion(decode(documents, bytes)));
+            run(report, "Question", "QuestionCodec", questionBytes, bytes -> decode(questionCodec, bytes));
+            run(report, "ExamResult", "Document + map", resultBytes,
+                    bytes -> mapToResult(decode(documents, bytes)));
+            run(report, "ExamResult", "ExamResultCodec", resultBytes, bytes -> decode(resultCodec, bytes));
+        }
+        System.exit(0);
+    }
+
+    private static void run(boolean report, String model, String decoder, List<byte[]> encoded,
+                            Function<byte[], Object> decode) {
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (byte[] bytes : encoded) {
+            sink = decode.apply(bytes);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        if (report) {
+            System.out.printf("%-12s %-16s %14.0f %16d%n", model, decoder, encoded.size() * 1e9 / elapsed,
+                    allocated / encoded.size());
+        }
+    }
+
+    private static <T> T decode(Codec<T> codec, byte[] bytes) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(ByteBuffer.wrap(bytes))) {
+            return codec.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    private static <T> List<byte[]> encode(Class<T> type, List<T> values) {
+        Codec<T> codec = ModelCodecs.REGISTRY.get(type);
+        List<byte[]> encoded = new ArrayList<>();
+        for (T value : values) {
+            BasicOutputBuffer buffer = new BasicOutputBuffer();
+            try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+                codec.encode(writer, value, EncoderContext.builder().build());
+            }
+            encoded.add(buffer.toByteArray());
+        }
+        return encoded;
+    }
+
+    private static Question question(int id) {
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            options.add("Option " + i + " for question " + id);
+        }
+        Question question = new Question(id, "Question " + id + ": which of the following holds?", options,
+                id % 4, "Subject " + (id % 20), id % 3 == 0 ? "HARD" : "MEDIUM", 1 + id % 5);
+        question.setId(new ObjectId());
+        return question;
+    }
+
+    private static ExamResult result(int id) {
+        ExamResult result = new ExamResult(id, 1 + id % 50, "Exam " + (1 + id % 50), 1000 + id,
+                "Student " + id, id % 40, 40, "2024-05-01T10:15:30");
+        result.setId(new ObjectId());
+        result.setStudentEmail("student" + id + "@example.edu");
+        result.setPercentage(result.getScore() * 100 / 40);
+        return result;
+    }
+
+    // The mappers QuestionDao and ResultDao used before the codecs
+    private static Question mapToQuestion(Document doc) {
+        Question q = new Question();
+        q.setId(doc.getObjectId("_id"));
+        q.setQuestionId(doc.getInteger("questionId"));
+        q.setQuestionText(doc.getString("questionText"));
+        q.setOptions(doc.getList("options", String.class));
+        q.setCorrectAnswer(doc.getInteger("correctAnswer"));
+        q.setSubject(doc.getString("subject"));
+        q.setDifficulty(doc.getString("difficulty"));
+        q.setMarks(doc.getInteger("marks"));
+        return q;
+    }
+
+    private static ExamResult mapToResult(Document doc) {
+        ExamResult result = new ExamResult();
+        result.setId(doc.getObjectId("_id"));
+        result.setResultId(doc.getInteger("resultId"));
+        result.setExamId(doc.getInteger("examId"));
+        result.setExamTitle(doc.getString("examTitle"));
+        result.setStudentId(doc.getInteger("studentId"));
+        result.setStudentName(doc.getString("studentName"));
+        result.setStudentEmail(doc.getString("studentEmail"));
+        result.setScore(doc.getInteger("score"));
+        result.setTotalMarks(doc.getInteger("totalMarks"));
+        result.setPercentage(doc.getInteger("percentage"));
+        result.setSubmittedAt(doc.getString("submittedAt"));
+        return result;
+    }
+}
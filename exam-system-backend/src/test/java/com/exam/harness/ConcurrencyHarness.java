@@ -0,0 +1,427 @@
+package com.exam.harness;
+
+import com.exam.config.RequestExecutor;
+import com.exam.dao.CounterDao;
+import com.exam.model.ExamResult;
+import com.exam.service.SequenceService;
+import com.exam.submission.ResultJournal;
+import com.exam.util.HashedWheelTimer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+// Standalone load checks for the concurrency-critical pieces: sequence blocks, the result journal,
+// the wheel timer and the request executor. Needs no running Mongo or servlet container (the stub CounterDao
+// builds a client through DBConnection, but it never connects). From exam-system-backend:
+//
+//   javac -d target/harness -cp "lib/*" $(find src/main/java src/test/java -name '*.java')
+//   java -cp "target/harness:lib/*" com.exam.harness.ConcurrencyHarness
+//
+// (lib/ holding the runtime jars). Exits non-zero if any check fails. On Java 21+ the executor section
+// also compares a blocking request load on platform threads against virtual threads.
+public class ConcurrencyHarness {
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        // Read by RequestExecutor when it is first touched
+        System.setProperty("server.virtualThreads", "true");
+
+        sequenceBlocks();
+        resultJournal();
+        wheelTimer();
+        requestExecutor();
+
+        System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    // --- SequenceService ---
+
+    // Counters collection in memory; each call costs a simulated round trip
+    private static final class InMemoryCounterDao extends CounterDao {
+        final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+        final AtomicInteger seeds = new AtomicInteger();
+        final AtomicInteger reservations = new AtomicInteger();
+
+        @Override
+        public void seed(String name, long floor) {
+            seeds.incrementAndGet();
+            roundTrip();
+            counters.computeIfAbsent(name, n -> new AtomicLong()).accumulateAndGet(floor, Math::max);
+        }
+
+        @Override
+        public long reserveBlock(String name, int blockSize) {
+            reservations.incrementAndGet();
+            roundTrip();
+            return counters.computeIfAbsent(name, n -> new AtomicLong()).addAndGet(blockSize);
+        }
+
+        @Override
+        public boolean release(String name, long limit, long lastUsed) {
+            roundTrip();
+            return counters.computeIfAbsent(name, n -> new AtomicLong()).compareAndSet(limit, lastUsed);
+        }
+
+        private static void roundTrip() {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void sequenceBlocks() throws Exception {
+        System.out.println("== SequenceService");
+        int threads = 64;
+        int perThread = 5000;
+        int blockSize = 1000;
+        int floor = 12345;
+
+        InMemoryCounterDao dao = new InMemoryCounterDao();
+        SequenceService sequences = new SequenceService(dao, blockSize);
+        String[] names = {"examId", "resultId"};
+        Map<String, IdBitmap> seen = new HashMap<>();
+        for (String name : names) {
+            seen.put(name, new IdBitmap(floor + threads * perThread + blockSize * threads));
+        }
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger belowFloor = new AtomicInteger();
+
+        long started = System.nanoTime();
+        runConcurrently(threads, t -> {
+            String name = names[t % names.length];
+            IdBitmap ids = seen.get(name);
+            for (int i = 0; i < perThread; i++) {
+                int id = sequences.nextId(name, () -> floor);
+                if (id <= floor) {
+                    belowFloor.incrementAndGet();
+                } else if (!ids.add(id)) {
+                    duplicates.incrementAndGet();
+                }
+            }
+        });
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        int total = threads * perThread;
+        int perName = total / names.length;
+        int expectedReservations = names.length * ((perName + blockSize - 1) / blockSize);
+        System.out.println("  " + total + " ids in " + elapsedMs + " ms, " + dao.reservations.get()
+                + " block reservations, " + dao.seeds.get() + " seeds");
+        check(duplicates.get() == 0, "no id handed out twice (" + duplicates.get() + " duplicates)");
+        check(belowFloor.get() == 0, "no id at or below the seeded floor");
+        check(dao.seeds.get() == names.length, "each sequence seeded once");
+        check(dao.reservations.get() == expectedReservations,
+                "one reservation per exhausted block (expected " + expectedReservations + ")");
+        for (String name : names) {
+            check(seen.get(name).lowest() == floor + 1, name + " starts right after the floor");
+        }
+
+        // Unused ids go back on shutdown, unless another node has reserved past them
+        InMemoryCounterDao shared = new InMemoryCounterDao();
+        SequenceService node = new SequenceService(shared, 100);
+        for (int i = 0; i < 5; i++) {
+            node.nextId("userId", () -> 0);
+        }
+        check(node.releaseUnused() == 95 && shared.counters.get("userId").get() == 5,
+                "release winds the counter back to the last id handed out");
+        check(node.nextId("userId", () -> 0) == 6, "the next id after a release follows on without a gap");
+        shared.reserveBlock("userId", 100); // another node
+        check(node.releaseUnused() == 0 && shared.counters.get("userId").get() == 205,
+                "release leaves the counter alone once another node reserved after it");
+    }
+
+    // Lock-free bitmap of ids, enough for uniqueness checks under contention
+    private static final class IdBitmap {
+        private final AtomicLongArray words;
+
+        IdBitmap(int capacity) {
+            this.words = new AtomicLongArray((capacity >> 6) + 1);
+        }
+
+        boolean add(int id) {
+            long bit = 1L << id;
+            while (true) {
+                long word = words.get(id >> 6);
+                if ((word & bit) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(id >> 6, word, word | bit)) {
+                    return true;
+                }
+            }
+        }
+
+        int lowest() {
+            for (int i = 0; i < words.length(); i++) {
+                long word = words.get(i);
+                if (word != 0) {
+                    return (i << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+            return -1;
+        }
+    }
+
+    // --- ResultJournal ---
+
+    private static void resultJournal() throws Exception {
+        System.out.println("== ResultJournal");
+        Path directory = Files.createTempDirectory("journal-harness");
+        try {
+            Path path = directory.resolve("submissions.journal");
+            int threads = 32;
+            int perThread = 500;
+
+            ResultJournal journal = new ResultJournal(path, 256 * 1024);
+            journal.open();
+            Map<Long, AtomicInteger> perSegment = new ConcurrentHashMap<>();
+            AtomicInteger nextResultId = new AtomicInteger();
+
+            long started = System.nanoTime();
+            runConcurrently(threads, t -> {
+                for (int i = 0; i < perThread; i++) {
+                    long segment = journal.append(result(nextResultId.incrementAndGet()));
+                    perSegment.computeIfAbsent(segment, s -> new AtomicInteger()).incrementAndGet();
+                }
+            });
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            int total = threads * perThread;
+            long appends = journal.getStats().get("appends").getAsLong();
+            long groupCommits = journal.getStats().get("groupCommits").getAsLong();
+            System.out.println("  " + total + " appends in " + elapsedMs + " ms, " + groupCommits
+                    + " group commits over " + perSegment.size() + " segments");
+            check(appends == total, "every append counted");
+            check(groupCommits < total, "appends shared fsyncs");
+            check(perSegment.size() > 1, "journal rolled over to new segments");
+
+            // Report every segment but the newest two as stored; those two are what a restart must replay
+            List<Long> segments = new ArrayList<>(perSegment.keySet());
+            segments.sort(null);
+            int unpersisted = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                long segment = segments.get(i);
+                int count = perSegment.get(segment).get();
+                if (i < segments.size() - 2) {
+                    journal.persisted(segment, count);
+                } else {
+                    unpersisted += count;
+                }
+            }
+            long filesLeft;
+            try (Stream<Path> files = Files.list(directory)) {
+                filesLeft = files.count();
+            }
+            check(filesLeft == Math.min(2, segments.size()), "persisted segments deleted (" + filesLeft + " files left)");
+            journal.close();
+
+            ResultJournal restarted = new ResultJournal(path, 256 * 1024);
+            restarted.open();
+            List<ExamResult> recovered = restarted.readRecovered();
+            check(recovered.size() == unpersisted,
+                    "restart recovers the unpersisted entries (" + recovered.size() + " of " + unpersisted + ")");
+            check(recovered.stream().allMatch(r -> r.getAnswerSheet() != null && r.getAnswerSheet().length == 4),
+                    "answer sheets survive the round trip");
+            restarted.discardRecovered();
+            restarted.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    private static ExamResult result(int resultId) {
+        ExamResult result = new ExamResult(resultId, 1, "Harness exam", resultId, "Student " + resultId, 7, 10,
+                "2026-01-01T00:00:00Z");
+        result.setPercentage(70);
+        result.setAnswerSheet(new byte[] {1, 2, 3, 4});
+        return result;
+    }
+
+    // --- HashedWheelTimer ---
+
+    private static void wheelTimer() throws Exception {
+        System.out.println("== HashedWheelTimer");
+        int items = 20000;
+        long tickMs = 10;
+        // 64 slots of 10 ms against deadlines up to 1.5 s out, so most timeouts wrap the wheel at least once
+        Map<Integer, Long> firedAt = new ConcurrentHashMap<>();
+        AtomicInteger firedTwice = new AtomicInteger();
+        HashedWheelTimer<Integer> timer = new HashedWheelTimer<>("harness-timer", tickMs, 64, expired -> {
+            long now = System.currentTimeMillis();
+            for (Integer item : expired) {
+                if (firedAt.putIfAbsent(item, now) != null) {
+                    firedTwice.incrementAndGet();
+                }
+            }
+        });
+        timer.start();
+
+        Random random = new Random(42);
+        long base = System.currentTimeMillis();
+        long[] deadlines = new long[items];
+        for (int i = 0; i < items; i++) {
+            deadlines[i] = base + random.nextInt(1500);
+        }
+        // Scheduled from several threads at once, as AttemptManager does from request threads
+        List<HashedWheelTimer.Timeout<Integer>> scheduled = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            scheduled.add(null);
+        }
+        runConcurrently(8, t -> {
+            for (int i = t; i < items; i += 8) {
+                scheduled.set(i, timer.schedule(i, deadlines[i]));
+            }
+        });
+        long cancelledAt = System.currentTimeMillis();
+        int cancelled = 0;
+        for (int i = 0; i < items; i += 10) {
+            scheduled.get(i).cancel();
+            cancelled++;
+        }
+
+        long waitUntil = base + 1500 + 1000;
+        while (firedAt.size() < items - cancelled && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(3 * tickMs); // give a cancelled timeout the chance to fire wrongly
+        timer.stop();
+
+        int early = 0;
+        int cancelledFired = 0;
+        long worstLateness = 0;
+        for (int i = 0; i < items; i++) {
+            Long at = firedAt.get(i);
+            if (i % 10 == 0) {
+                // Cancelled after scheduling; one that was already due may legitimately have fired first
+                if (at != null && deadlines[i] > cancelledAt + tickMs) {
+                    cancelledFired++;
+                }
+                continue;
+            }
+            if (at == null) {
+                continue;
+            }
+            if (at < deadlines[i]) {
+                early++;
+            }
+            worstLateness = Math.max(worstLateness, at - deadlines[i]);
+        }
+        int fired = (int) firedAt.keySet().stream().filter(i -> i % 10 != 0).count();
+        System.out.println("  " + fired + " of " + (items - cancelled) + " fired, worst lateness " + worstLateness
+                + " ms, " + timer.getPending() + " pending after stop");
+        check(fired == items - cancelled, "every live timeout fired");
+        check(firedTwice.get() == 0, "no timeout fired twice");
+        check(early == 0, "nothing fired before its deadline (" + early + " early)");
+        check(cancelledFired == 0, "cancelled timeouts stayed quiet (" + cancelledFired + " fired)");
+        check(worstLateness < 10 * tickMs, "lateness within a few ticks");
+    }
+
+    // --- RequestExecutor ---
+
+    private static void requestExecutor() throws Exception {
+        System.out.println("== RequestExecutor");
+        RequestExecutor requestExecutor = RequestExecutor.getInstance();
+        boolean virtualAvailable = Runtime.version().feature() >= 21;
+        check(requestExecutor.isVirtual() == virtualAvailable, virtualAvailable
+                ? "virtual thread executor created on Java " + Runtime.version().feature()
+                : "falls back to container threads on Java " + Runtime.version().feature());
+        check((requestExecutor.get() != null) == requestExecutor.isVirtual(), "get() agrees with isVirtual()");
+
+        // A request that spends 20 ms blocked on Mongo, as most handlers do
+        int requests = 10000;
+        Runnable handler = () -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        // Tomcat's default maxThreads
+        ExecutorService platform = Executors.newFixedThreadPool(200);
+        long platformMs = timeRequests(platform, requests, handler);
+        platform.shutdown();
+        System.out.println("  " + requests + " blocking requests on 200 platform threads: " + platformMs + " ms");
+
+        if (requestExecutor.isVirtual()) {
+            long virtualMs = timeRequests(requestExecutor.get(), requests, handler);
+            System.out.println("  " + requests + " blocking requests on virtual threads: " + virtualMs + " ms");
+            check(virtualMs < platformMs, "virtual threads outpace the fixed pool on blocking load");
+            requestExecutor.shutdown();
+            check(requestExecutor.get().isShutdown(), "shutdown() stops the executor");
+        } else {
+            System.out.println("  virtual thread comparison skipped (needs Java 21+)");
+            requestExecutor.shutdown(); // no-op without an executor
+        }
+    }
+
+    private static long timeRequests(ExecutorService executor, int requests, Runnable handler) throws Exception {
+        long started = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            futures.add(executor.submit(handler));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    // --- helpers ---
+
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+
+    // Starts every worker at the same moment and rethrows the first failure
+    private static void runConcurrently(int threads, Worker worker) throws Exception {
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                go.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        go.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void check(boolean condition, String description) {
+        if (condition) {
+            System.out.println("  ok   " + description);
+        } else {
+            failures++;
+            System.out.println("  FAIL " + description);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.exam.harness;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Exam-open load against a running server: every student starts the exam at once, fetches the paper,
+// autosaves a few answers and submits, and the harness reports throughput and per-endpoint p50/p95/p99.
+// Run it once with server.virtualThreads=false and once with true to compare the two execution modes.
+//
+//   java -cp "target/harness:lib/*" com.exam.harness.LoadHarness --exam 12 [--students 5000]
+//        [--api http://localhost:8080/exam-system/api] [--autosaves 5] [--prefix load1] [--rampMs 0]
+//
+// The exam must be open (ONGOING or unscheduled). Students <prefix>-<n>@loadtest.invalid are registered
+// on first use, so a second run against the same exam needs a new --prefix (each student submits once).
+// Logging them in is setup and is not measured.
+public class LoadHarness {
+    private static final String PASSWORD = "LoadTest#2024";
+
+    private final HttpClient client;
+    private final String api;
+    private final int examId;
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+
+    private LoadHarness(HttpClient client, String api, int examId) {
+        this.client = client;
+        this.api = api;
+        this.examId = examId;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        if (!options.containsKey("exam")) {
+            System.err.println("Usage: LoadHarness --exam <examId> [--students 5000] [--api <url>] [--autosaves 5]"
+                    + " [--prefix load] [--rampMs 0]");
+            System.exit(2);
+        }
+        int examId = Integer.parseInt(options.get("exam"));
+        int students = Integer.parseInt(options.getOrDefault("students", "5000"));
+        int autosaves = Integer.parseInt(options.getOrDefault("autosaves", "5"));
+        long rampMs = Long.parseLong(options.getOrDefault("rampMs", "0"));
+        String prefix = options.getOrDefault("prefix", "load");
+        String api = options.getOrDefault("api", "http://localhost:8080/exam-system/api");
+
+        // Callbacks only parse small bodies; the sockets are what the server sees
+        ExecutorService callbacks = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(callbacks)
+                .build();
+        LoadHarness harness = new LoadHarness(client, api, examId);
+
+        System.out.println("Logging in " + students + " students...");
+        List<String> tokens = harness.loginAll(prefix, students);
+        System.out.println(tokens.size() + " students ready");
+
+        harness.latencies.clear();
+        harness.failures.clear();
+        harness.requests.set(0);
+        long started = System.nanoTime();
+        List<CompletableFuture<Void>> flows = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            long delayMs = tokens.size() > 1 ? rampMs * i / (tokens.size() - 1) : 0;
+            String token = tokens.get(i);
+            Random random = new Random(i);
+            flows.add(CompletableFuture.supplyAsync(() -> null,
+                            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> harness.takeExam(token, autosaves, random)));
+        }
+        CompletableFuture.allOf(flows.toArray(new CompletableFuture<?>[0])).join();
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        harness.report(tokens.size(), elapsedMs);
+        callbacks.shutdown();
+        System.exit(0);
+    }
+
+    // --- setup ---
+
+    private List<String> loginAll(String prefix, int students) {
+        // Bounded: BCrypt makes logins expensive on purpose, and they are not what is being measured
+        Semaphore inFlight = new Semaphore(32);
+        List<String> tokens = Collections.synchronizedList(new ArrayList<>(students));
+        List<CompletableFuture<Void>> logins = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            String email = prefix + "-" + i + "@loadtest.invalid";
+            inFlight.acquireUninterruptibly();
+            logins.add(loginOrRegister(email, "Load Student " + i)
+                    .handle((token, e) -> {
+                        inFlight.release();
+                        if (token != null) {
+                            tokens.add(token);
+                        } else {
+                            System.err.println("Could not log in " + email + ": " + (e != null ? e.getMessage() : "no token"));
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(logins.toArray(new CompletableFuture<?>[0])).join();
+        return tokens;
+    }
+
+    private CompletableFuture<String> loginOrRegister(String email, String name) {
+        JsonObject credentials = new JsonObject();
+        credentials.addProperty("email", email);
+        credentials.addProperty("password", PASSWORD);
+        return post("/auth/login", null, credentials).thenCompose(login -> {
+            if (login.statusCode() == 200) {
+                return CompletableFuture.completedFuture(token(login));
+            }
+            JsonObject user = credentials.deepCopy();
+            user.addProperty("fullName", name);
+            return post("/auth/register", null, user)
+                    .thenCompose(registered -> post("/auth/login", null, credentials))
+                    .thenApply(LoadHarness::token);
+        });
+    }
+
+    private static String token(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        JsonElement token = JsonParser.parseString(response.body()).getAsJsonObject().get("token");
+        return token != null ? token.getAsString() : null;
+    }
+
+    // --- the measured flow ---
+
+    private CompletableFuture<Void> takeExam(String token, int autosaves, Random random) {
+        String exam = "/student/exam/" + examId;
+        return timed("start", postTimed(exam + "/start", token, new JsonObject()))
+                .thenCompose(started -> started == null ? done() : timed("questions", get(exam + "/questions", token))
+                        .thenCompose(paper -> {
+                            if (paper == null) {
+                                return done();
+                            }
+                            List<Integer> questionIds = new ArrayList<>();
+                            for (JsonElement question : JsonParser.parseString(paper.body()).getAsJsonArray()) {
+                                questionIds.add(question.getAsJsonObject().get("questionId").getAsInt());
+                            }
+                            Map<Integer, Integer> answers = new HashMap<>();
+                            CompletableFuture<Boolean> chain = CompletableFuture.completedFuture(true);
+                            for (int i = 0; i < autosaves && !questionIds.isEmpty(); i++) {
+                                int questionId = questionIds.get(random.nextInt(questionIds.size()));
+                                int option = random.nextInt(4);
+                                answers.put(questionId, option);
+                                chain = chain.thenCompose(ok -> !ok ? CompletableFuture.completedFuture(false)
+                                        : timed("autosave", postTimed(exam + "/autosave", token, answersBody(Map.of(questionId, option))))
+                                                .thenApply(response -> response != null));
+                            }
+                            return chain.thenCompose(ok -> !ok ? done()
+                                    : timed("submit", postTimed(exam + "/submit", token, answersBody(answers))).thenApply(r -> null));
+                        }));
+    }
+
+    private static JsonObject answersBody(Map<Integer, Integer> answers) {
+        JsonObject map = new JsonObject();
+        answers.forEach((questionId, option) -> map.addProperty(String.valueOf(questionId), option));
+        JsonObject body = new JsonObject();
+        body.add("answers", map);
+        return body;
+    }
+
+    private static CompletableFuture<Void> done() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Records the latency under step; null (and a counted failure) for a non-2xx status or an I/O error
+    private CompletableFuture<HttpResponse<String>> timed(String step, CompletableFuture<TimedResponse> call) {
+        return call.handle((timed, e) -> {
+            requests.incrementAndGet();
+            if (e != null) {
+                failures.computeIfAbsent(step + " " + rootCause(e).getClass().getSimpleName(), k -> new AtomicInteger())
+                        .incrementAndGet();
+                return null;
+            }
+            latencies.computeIfAbsent(step, k -> Collections.synchronizedList(new ArrayList<>())).add(timed.nanos);
+            int status = timed.response.statusCode();
+            if (status < 200 || status >= 300) {
+                failures.computeIfAbsent(step + " HTTP " + status, k -> new AtomicInteger()).incrementAndGet();
+                return null;
+            }
+            return timed.response;
+        });
+    }
+
+    private static final class TimedResponse {
+        final HttpResponse<String> response;
+        final long nanos;
+
+        TimedResponse(HttpResponse<String> response, long nanos) {
+            this.response = response;
+            this.nanos = nanos;
+        }
+    }
+
+    private CompletableFuture<TimedResponse> get(String path, String token) {
+        return send(request(path, token).GET().build());
+    }
+
+    private CompletableFuture<TimedResponse> postTimed(String path, String token, JsonObject body) {
+        return send(request(path, token).POST(HttpRequest.BodyPublishers.ofString(body.toString())).build());
+    }
+
+    // Unmeasured variant for setup
+    private CompletableFuture<HttpResponse<String>> post(String path, String token, JsonObject body) {
+        return postTimed(path, token, body).thenApply(timed -> timed.response);
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(api + path))
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json");
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private CompletableFuture<TimedResponse> send(HttpRequest request) {
+        long started = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> new TimedResponse(response, System.nanoTime() - started));
+    }
+
+    // --- report ---
+
+    private void report(int students, long elapsedMs) {
+        System.out.println();
+        System.out.println(students + " concurrent students, exam " + examId + ", " + requests.get() + " requests in "
+                + elapsedMs + " ms = " + (requests.get() * 1000 / elapsedMs) + " req/s");
+        System.out.printf("  %-10s %8s %8s %8s %8s %8s%n", "step", "count", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        List<Long> all = new ArrayList<>();
+        for (String step : new String[] {"start", "questions", "autosave", "submit"}) {
+            List<Long> samples = latencies.get(step);
+            if (samples != null) {
+                all.addAll(samples);
+                printRow(step, samples);
+            }
+        }
+        printRow("all", all);
+        if (failures.isEmpty()) {
+            System.out.println("  no failures");
+        } else {
+            failures.forEach((kind, count) -> System.out.println("  failed: " + kind + " x" + count.get()));
+        }
+    }
+
+    private static void printRow(String step, List<Long> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        long[] sorted = new long[samples.size()];
+        synchronized (samples) {
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = samples.get(i);
+            }
+        }
+        Arrays.sort(sorted);
+        System.out.printf("  %-10s %8d %8.1f %8.1f %8.1f %8.1f%n", step, sorted.length, millis(sorted, 0.50),
+                millis(sorted, 0.95), millis(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    // Nearest-rank percentile
+    private static double millis(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        while (e.getCause() != null && e.getCause() != e) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,154 @@
+package com.exam.harness;
+
+import com.exam.service.PasswordHasher;
+import com.exam.util.PasswordUtils;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Login throughput at several BCrypt cost factors, with the check run inline on 200 "request threads"
+// (Tomcat's default pool) versus handed to PasswordHasher's core-sized pool. Alongside, a light request
+// (about a millisecond of CPU every 5 ms) reports how long it takes while logins are running: the starvation
+// of every other endpoint that the pool is there to prevent. Built as in ConcurrencyHarness, then:
+//
+//   java -cp "target/harness:lib/*" com.exam.harness.PasswordHasherBenchmark [seconds per run, default 5] [costs, default 8,10,12]
+//
+// Rejected logins are what AuthServlet answers with 503; run it on the server's core count to compare.
+public class PasswordHasherBenchmark {
+    private static final int REQUEST_THREADS = 200;
+    private static final String PASSWORD = "correct horse battery staple";
+    private static int lightRequestRounds;
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        String[] costs = (args.length > 1 ? args[1] : "8,10,12").split(",");
+        lightRequestRounds = calibrate();
+        long[] idle = new long[200];
+        for (int i = 0; i < idle.length; i++) {
+            idle[i] = lightRequest();
+        }
+        Arrays.sort(idle);
+        System.out.printf("%d cores, %d request threads, %d s per run; light request alone: p50 %.2f ms%n",
+                Runtime.getRuntime().availableProcessors(), REQUEST_THREADS, seconds, percentile(idle, 0.50));
+        System.out.printf("%-5s %-8s %10s %11s %11s %13s %13s%n", "cost", "mode", "logins/s", "rejected/s",
+                "light done", "light p50 ms", "light p99 ms");
+
+        for (String cost : costs) {
+            String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(Integer.parseInt(cost.trim())));
+            // Same hash with the $2y$ prefix PHP and others write, which the check must accept
+            String hash2y = "$2y$" + hash.substring(4);
+            run(cost.trim(), "inline", seconds, () -> PasswordUtils.checkPassword(PASSWORD, hash2y));
+            run(cost.trim(), "pooled", seconds, () -> PasswordHasher.getInstance().check(PASSWORD, hash2y));
+        }
+        System.exit(0);
+    }
+
+    private interface Login {
+        boolean attempt();
+    }
+
+    private static void run(String cost, String mode, long seconds, Login login) throws Exception {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong logins = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong wrong = new AtomicLong();
+        CountDownLatch finished = new CountDownLatch(REQUEST_THREADS + 1);
+
+        // Started first so it is already running when the logins pile up
+        List<Long> light = new ArrayList<>();
+        Thread probe = new Thread(() -> {
+            try {
+                while (System.nanoTime() < end) {
+                    // Timed from when it is due, so waiting to be scheduled counts as well as the work
+                    long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5);
+                    sleep(5);
+                    lightRequest();
+                    light.add(System.nanoTime() - due);
+                }
+            } finally {
+                finished.countDown();
+            }
+        }, "light-request");
+        probe.setDaemon(true);
+        probe.start();
+
+        for (int i = 0; i < REQUEST_THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        try {
+                            if (login.attempt()) {
+                                logins.incrementAndGet();
+                            } else {
+                                wrong.incrementAndGet();
+                            }
+                        } catch (RejectedExecutionException e) {
+                            // What AuthServlet turns into a 503; a real client backs off before retrying
+                            rejected.incrementAndGet();
+                            sleep(50);
+                        }
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            }, "request-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        finished.await();
+
+        long[] sorted = light.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf("%-5s %-8s %10.1f %11.1f %11d %13.2f %13.2f%n", cost, mode, logins.get() / (double) seconds,
+                rejected.get() / (double) seconds, sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.99));
+        if (wrong.get() > 0) {
+            System.out.println("  " + wrong.get() + " checks of the right password failed");
+        }
+    }
+
+    // Rounds of busy work that take about a millisecond on an idle machine
+    private static int calibrate() {
+        lightRequestRounds = 10_000;
+        for (int i = 0; i < 50; i++) {
+            lightRequest();
+        }
+        long nanos = lightRequest();
+        return (int) Math.max(1, lightRequestRounds * TimeUnit.MILLISECONDS.toNanos(1) / Math.max(1, nanos));
+    }
+
+    private static long lightRequest() {
+        long start = System.nanoTime();
+        long x = start;
+        for (int i = 0; i < lightRequestRounds; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        sink = x;
+        return System.nanoTime() - start;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.exam.harness;
+
+import com.exam.model.Question;
+import com.exam.util.JsonUtils;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Peak heap of a list endpoint (GET /api/teacher/questions and friends) answered the old way, the whole
+// collection read into a List and serialised to one String by sendSuccess, against JsonUtils.streamArray
+// writing each document as the cursor yields it. Documents come from a stub iterable and the body goes to
+// a stub response that only counts bytes, so neither Mongo nor a container is needed. Built as in
+// ConcurrencyHarness, then:
+//
+//   java -Xmx1g -Xmn16m -cp "target/harness:lib/*" com.exam.harness.StreamArrayBenchmark [sizes, default 10000,100000,300000]
+//
+// A small young generation keeps garbage from hiding in eden, so the peak tracks what each approach holds on to.
+public class StreamArrayBenchmark {
+    private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) throws Exception {
+        String[] sizes = (args.length > 0 ? args[0] : "10000,100000,300000").split(",");
+        System.out.printf("%-10s %-10s %14s %16s %10s%n", "documents", "mode", "body MB", "peak heap MB", "ms");
+
+        // Warm both paths up so class loading and JIT do not land in the first measurement
+        run(2_000, false);
+        run(2_000, true);
+
+        for (String size : sizes) {
+            int count = Integer.parseInt(size.trim());
+            report(count, "buffered", run(count, false));
+            report(count, "streamed", run(count, true));
+        }
+        System.exit(0);
+    }
+
+    private static void report(int count, String mode, long[] result) {
+        System.out.printf("%-10d %-10s %14.1f %16.1f %10d%n", count, mode, result[0] / 1048576.0,
+                result[1] / 1048576.0, result[2]);
+    }
+
+    // Returns {body bytes, peak heap above the starting point, elapsed ms}
+    private static long[] run(int count, boolean streamed) throws Exception {
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+
+        AtomicLong bodyBytes = new AtomicLong();
+        HttpServletResponse resp = response(bodyBytes);
+        long start = System.nanoTime();
+        if (streamed) {
+            JsonUtils.streamArray(resp, questions(count));
+        } else {
+            // What getAllQuestions + sendSuccess did before
+            List<Question> all = new ArrayList<>();
+            for (Question question : questions(count)) {
+                all.add(question);
+            }
+            JsonUtils.sendSuccess(resp, all);
+        }
+        resp.getWriter().flush();
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        sampler.interrupt();
+        sampler.join();
+        return new long[]{bodyBytes.get(), peak.get() - baseline, elapsed};
+    }
+
+    private static Question question(int id) {
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            options.add("Option " + i + " for question " + id + ", long enough to look like a real answer");
+        }
+        return new Question(id, "Question " + id + ": which of the following best describes the behaviour"
+                + " of the system under the conditions given in the scenario above?", options, id % 4,
+                "Subject " + (id % 20), id % 3 == 0 ? "HARD" : "MEDIUM", 1 + id % 5);
+    }
+
+    // A MongoIterable whose cursor builds each document when it is asked for, as a driver cursor decodes them
+    @SuppressWarnings("unchecked")
+    private static MongoIterable<Question> questions(int count) {
+        return (MongoIterable<Question>) Proxy.newProxyInstance(StreamArrayBenchmark.class.getClassLoader(),
+                new Class<?>[]{MongoIterable.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("iterator") || method.getName().equals("cursor")) {
+                        return cursor(count);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static MongoCursor<Question> cursor(int count) {
+        Iterator<Question> documents = new Iterator<>() {
+            private int next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return next <= count;
+            }
+
+            @Override
+            public Question next() {
+                return question(next++);
+            }
+        };
+        @SuppressWarnings("unchecked")
+        MongoCursor<Question> cursor = (MongoCursor<Question>) Proxy.newProxyInstance(
+                StreamArrayBenchmark.class.getClassLoader(), new Class<?>[]{MongoCursor.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "hasNext": return documents.hasNext();
+                        case "next": return documents.next();
+                        case "close": return null;
+                        default: throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return cursor;
+    }
+
+    // Only the calls JsonUtils makes; the body is counted and dropped
+    private static HttpServletResponse response(AtomicLong bodyBytes) {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new OutputStream() {
+            @Override
+            public void write(int b) {
+                bodyBytes.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bodyBytes.addAndGet(len);
+            }
+        }, StandardCharsets.UTF_8));
+        return (HttpServletResponse) Proxy.newProxyInstance(StreamArrayBenchmark.class.getClassLoader(),
+                new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getWriter": return writer;
+                        case "setContentType":
+                        case "setCharacterEncoding":
+                        case "setStatus":
+                            return null;
+                        default: throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -17,10 +17,10 @@ export const adminService = {
   },
 
   async createUser(userData: Omit<User, 'userId' | 'createdAt'>): Promise<User> {
-    // Admin creating a user is essentially registration
+    // Admin creating a user is registration with the admin's token, which allows TEACHER and ADMIN roles
     const response = await fetch(`${API_BASE_URL}/auth/register`, {
       method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
+      headers: getHeaders(),
       body: JSON.stringify(userData),
     });
     return handleResponse(response);
@@ -1,8 +1,13 @@
 import { Exam, Question, ExamResult, DashboardStats } from '@/types';
 import { API_BASE_URL, getHeaders, handleResponse } from './config';
 
-// Temporary local storage for answers since backend doesn't support partial saves yet
-const savedAnswers: Map<number, Map<number, number>> = new Map();
+export interface ExamAttempt {
+  examId: number;
+  state: string;
+  startedAt: number;
+  deadline: number;
+  remainingSeconds: number;
+}
 
 export const studentService = {
   async getDashboard(): Promise<{ exams: Exam[]; stats: DashboardStats }> {
@@ -26,12 +31,22 @@ export const studentService = {
     return handleResponse(response);
   },
 
+  // Starts the timed attempt, or resumes it after a reload; the server owns the deadline
+  async startExam(examId: number): Promise<ExamAttempt> {
+    const response = await fetch(`${API_BASE_URL}/student/exam/${examId}/start`, {
+      method: 'POST',
+      headers: getHeaders(),
+    });
+    return handleResponse(response);
+  },
+
   async saveAnswer(examId: number, questionId: number, selectedOption: number): Promise<void> {
-    // Keep this local for now as backend doesn't have an endpoint for single answer save
-    if (!savedAnswers.has(examId)) {
-      savedAnswers.set(examId, new Map());
-    }
-    savedAnswers.get(examId)!.set(questionId, selectedOption);
+    const response = await fetch(`${API_BASE_URL}/student/exam/${examId}/autosave`, {
+      method: 'POST',
+      headers: getHeaders(),
+      body: JSON.stringify({ answers: { [questionId]: selectedOption } }),
+    });
+    await handleResponse(response);
   },
 
   async submitExam(examId: number, answers: Map<number, number>): Promise<ExamResult> {
@@ -41,21 +56,7 @@ export const studentService = {
       headers: getHeaders(),
       body: JSON.stringify({ answers: answersObj }),
     });
-
-    // Backend currently returns a success message, not the full result
-    // So we return a mock result for the UI to show something
-    return {
-      resultId: Date.now(),
-      examId,
-      examTitle: 'Exam Submitted',
-      studentId: 0,
-      studentName: 'Student',
-      score: 0,
-      totalMarks: 0,
-      percentage: 0,
-      submittedAt: new Date().toISOString(),
-      answers: [],
-    };
+    return handleResponse(response);
   },
 
   async getResult(resultId: number): Promise<ExamResult> {
@@ -4,12 +4,14 @@ import { Clock, AlertTriangle } from 'lucide-react';
 
 interface TimerProps {
   initialMinutes: number;
+  // Overrides initialMinutes, e.g. with the time the server says is left
+  initialSeconds?: number;
   onTimeUp: () => void;
   isPaused?: boolean;
 }
 
-export function Timer({ initialMinutes, onTimeUp, isPaused = false }: TimerProps) {
-  const [totalSeconds, setTotalSeconds] = useState(initialMinutes * 60);
+export function Timer({ initialMinutes, initialSeconds, onTimeUp, isPaused = false }: TimerProps) {
+  const [totalSeconds, setTotalSeconds] = useState(initialSeconds ?? initialMinutes * 60);
 
   const formatTime = useCallback((seconds: number) => {
     const hrs = Math.floor(seconds / 3600);
@@ -29,19 +29,23 @@ export function ExamTakingPage() {
   const [answers, setAnswers] = useState<Map<number, number>>(new Map());
   const [markedForReview, setMarkedForReview] = useState<Set<number>>(new Set());
   const [showSubmitModal, setShowSubmitModal] = useState(false);
+  const [remainingSeconds, setRemainingSeconds] = useState<number | undefined>(undefined);
 
   useEffect(() => {
     const fetchExamData = async () => {
       try {
+        // Start (or resume) the attempt first: submit and autosave are refused without one
+        const attempt = await studentService.startExam(parseInt(examId || '0'));
         const [examData, questionsData] = await Promise.all([
           studentService.getExamDetails(parseInt(examId || '0')),
           studentService.getExamQuestions(parseInt(examId || '0')),
         ]);
+        setRemainingSeconds(attempt.remainingSeconds);
         setExam(examData);
         setQuestions(questionsData);
       } catch (error) {
         console.error('Failed to fetch exam:', error);
-        toast.error('Failed to load exam');
+        toast.error(error instanceof Error ? error.message : 'Failed to load exam');
         navigate('/dashboard');
       } finally {
         setIsLoading(false);
@@ -85,7 +89,7 @@ export function ExamTakingPage() {
       toast.success('Exam submitted successfully!');
       navigate(`/student/result/${result.resultId}`);
     } catch (error) {
-      toast.error('Failed to submit exam');
+      toast.error(error instanceof Error ? error.message : 'Failed to submit exam');
       setIsSubmitting(false);
     }
   };
@@ -135,6 +139,7 @@ export function ExamTakingPage() {
           <div className="flex items-center gap-4">
             <Timer 
               initialMinutes={exam.duration} 
+              initialSeconds={remainingSeconds}
               onTimeUp={handleTimeUp}
             />
             <Button